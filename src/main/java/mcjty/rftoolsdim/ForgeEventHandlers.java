@@ -2,14 +2,18 @@ package mcjty.rftoolsdim;
 
 import mcjty.lib.varia.Logging;
 import mcjty.rftoolsdim.config.GeneralConfiguration;
-import mcjty.rftoolsdim.config.PowerConfiguration;
+import mcjty.rftoolsdim.dimensions.ChunkFreezer;
 import mcjty.rftoolsdim.dimensions.DimensionInformation;
-import mcjty.rftoolsdim.dimensions.DimensionStorage;
 import mcjty.rftoolsdim.dimensions.RfToolsDimensionManager;
-import mcjty.rftoolsdim.dimensions.types.EffectType;
 import mcjty.rftoolsdim.dimensions.types.FeatureType;
+import mcjty.rftoolsdim.dimensions.world.GenericChunkProvider;
+import mcjty.rftoolsdim.dimensions.world.GenericWorldProvider;
+import mcjty.rftoolsdim.dimensions.world.LocalMobDensity;
+import mcjty.rftoolsdim.dimensions.world.SpawnPolicy;
 import mcjty.rftoolsdim.items.ModItems;
 import mcjty.rftoolsdim.network.DimensionSyncPacket;
+import mcjty.rftoolsdim.network.PacketDimensionInfoHandshake;
+import mcjty.rftoolsdim.network.RFToolsDimMessages;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.SharedMonsterAttributes;
 import net.minecraft.entity.ai.attributes.IAttributeInstance;
@@ -17,15 +21,17 @@ import net.minecraft.entity.monster.EntityEnderman;
 import net.minecraft.entity.monster.IMob;
 import net.minecraft.entity.passive.IAnimals;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.item.ItemStack;
 import net.minecraft.network.NetHandlerPlayServer;
-import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.entity.living.LivingDropsEvent;
 import net.minecraftforge.event.entity.living.LivingSpawnEvent;
 import net.minecraftforge.event.terraingen.ChunkProviderEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.Event;
+import net.minecraftforge.fml.common.eventhandler.EventPriority;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.PlayerEvent;
 import net.minecraftforge.fml.common.network.FMLNetworkEvent;
@@ -39,10 +45,11 @@ public class ForgeEventHandlers {
 
     @SubscribeEvent
     public void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
-        Logging.log("SMP: Player logged in: Sync diminfo to clients");
+        Logging.log("SMP: Player logged in: Sync diminfo to client");
         EntityPlayer player = event.player;
         RfToolsDimensionManager manager = RfToolsDimensionManager.getDimensionManager(player.getEntityWorld());
-        manager.syncDimInfoToClients(player.getEntityWorld());
+        // The client answers with what it has cached (see SyncDimensionInfoHelper.startSync()).
+        RFToolsDimMessages.INSTANCE.sendTo(new PacketDimensionInfoHandshake(), (EntityPlayerMP) player);
         manager.syncDimletRules(player);
     }
 
@@ -63,18 +70,23 @@ public class ForgeEventHandlers {
         RFToolsDim.channels.get(Side.SERVER).writeOutbound(packet);
     }
 
+    // The compiled spawn rules of an RFTools dimension or null if this is not an RFTools dimension.
+    private static SpawnPolicy getSpawnPolicy(World world) {
+        if (world.provider instanceof GenericWorldProvider) {
+            return ((GenericWorldProvider) world.provider).getSpawnPolicy();
+        }
+        return null;
+    }
+
     @SubscribeEvent
     public void onEntityJoinWorldEvent(EntityJoinWorldEvent event) {
         World world = event.world;
         if (world.isRemote) {
             return;
         }
-        int id = world.provider.getDimensionId();
+        SpawnPolicy policy = getSpawnPolicy(world);
 
-        RfToolsDimensionManager dimensionManager = RfToolsDimensionManager.getDimensionManager(world);
-        DimensionInformation dimensionInformation = dimensionManager.getDimensionInformation(id);
-
-        if (dimensionInformation != null && dimensionInformation.isNoanimals()) {
+        if (policy != null && policy.isNoAnimals()) {
             if (event.entity instanceof IAnimals && !(event.entity instanceof IMob)) {
                 event.setCanceled(true);
                 Logging.logDebug("Noanimals dimension: Prevented a spawn of " + event.entity.getClass().getName());
@@ -82,55 +94,73 @@ public class ForgeEventHandlers {
         }
     }
 
+    // Last so that mobs whose spawn is canceled by another handler are not counted.
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public void onMobJoinWorldEvent(EntityJoinWorldEvent event) {
+        if (event.world.isRemote || !(event.entity instanceof IMob) || !(event.world.provider instanceof GenericWorldProvider)) {
+            return;
+        }
+        GenericChunkProvider chunkProvider = ((GenericWorldProvider) event.world.provider).getGenericChunkProvider();
+        if (chunkProvider == null) {
+            return;
+        }
+        LocalMobDensity localMobDensity = chunkProvider.getLocalMobDensity();
+        if (localMobDensity != null) {
+            localMobDensity.onMobAdded(event.entity);
+        }
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        if (!event.world.isRemote) {
+            ChunkFreezer.forget(event.world.provider.getDimensionId());
+            if (event.world.provider instanceof GenericWorldProvider) {
+                GenericChunkProvider chunkProvider = ((GenericWorldProvider) event.world.provider).getGenericChunkProvider();
+                if (chunkProvider != null) {
+                    chunkProvider.getPrimerPipeline().cancelAll();
+                }
+            }
+        }
+    }
+
     @SubscribeEvent
     public void onEntitySpawnEvent(LivingSpawnEvent.CheckSpawn event) {
         World world = event.world;
-        int id = world.provider.getDimensionId();
-
-        RfToolsDimensionManager dimensionManager = RfToolsDimensionManager.getDimensionManager(world);
-        DimensionInformation dimensionInformation = dimensionManager.getDimensionInformation(id);
+        SpawnPolicy policy = getSpawnPolicy(world);
+        if (policy == null) {
+            return;
+        }
 
-        if (PowerConfiguration.preventSpawnUnpowered) {
-            if (dimensionInformation != null) {
-                // RFTools dimension.
-                DimensionStorage storage = DimensionStorage.getDimensionStorage(world);
-                int energy = storage.getEnergyLevel(id);
-                if (energy <= 0) {
-                    event.setResult(Event.Result.DENY);
-                    Logging.logDebug("Dimension power low: Prevented a spawn of " + event.entity.getClass().getName());
-                }
+        if (policy.isPreventUnpowered()) {
+            // RFTools dimension.
+            int energy = ((GenericWorldProvider) world.provider).getEnergyLevel();
+            if (energy <= 0) {
+                event.setResult(Event.Result.DENY);
+                Logging.logDebug("Dimension power low: Prevented a spawn of " + event.entity.getClass().getName());
             }
         }
 
-        if (dimensionInformation != null) {
-            if (dimensionInformation.hasEffectType(EffectType.EFFECT_STRONGMOBS) || dimensionInformation.hasEffectType(EffectType.EFFECT_BRUTALMOBS)) {
-                if (event.entity instanceof EntityLivingBase) {
-                    EntityLivingBase entityLivingBase = (EntityLivingBase) event.entity;
-                    IAttributeInstance entityAttribute = entityLivingBase.getEntityAttribute(SharedMonsterAttributes.maxHealth);
-                    double newMax;
-                    if (dimensionInformation.hasEffectType(EffectType.EFFECT_BRUTALMOBS)) {
-                        newMax = entityAttribute.getBaseValue() * GeneralConfiguration.brutalMobsFactor;
-                    } else {
-                        newMax = entityAttribute.getBaseValue() * GeneralConfiguration.strongMobsFactor;
-                    }
-                    entityAttribute.setBaseValue(newMax);
-                    entityLivingBase.setHealth((float) newMax);
-                }
+        if (policy.isChangeHealth()) {
+            if (event.entity instanceof EntityLivingBase) {
+                EntityLivingBase entityLivingBase = (EntityLivingBase) event.entity;
+                IAttributeInstance entityAttribute = entityLivingBase.getEntityAttribute(SharedMonsterAttributes.maxHealth);
+                double newMax = entityAttribute.getBaseValue() * policy.getHealthFactor();
+                entityAttribute.setBaseValue(newMax);
+                entityLivingBase.setHealth((float) newMax);
             }
         }
 
         if (event.entity instanceof IMob) {
-            BlockPos coordinate = new BlockPos((int) event.entity.posX, (int) event.entity.posY, (int) event.entity.posZ);
             /* if (PeacefulAreaManager.isPeaceful(new GlobalCoordinate(coordinate, id))) {
                 event.setResult(Event.Result.DENY);
                 Logging.logDebug("Peaceful manager: Prevented a spawn of " + event.entity.getClass().getName());
-            } else */ if (dimensionInformation != null && dimensionInformation.isPeaceful()) {
+            } else */ if (policy.isPeaceful()) {
                 // RFTools dimension.
                 event.setResult(Event.Result.DENY);
                 Logging.logDebug("Peaceful dimension: Prevented a spawn of " + event.entity.getClass().getName());
             }
         } else if (event.entity instanceof IAnimals) {
-            if (dimensionInformation != null && dimensionInformation.isNoanimals()) {
+            if (policy.isNoAnimals()) {
                 // RFTools dimension.
                 event.setResult(Event.Result.DENY);
                 Logging.logDebug("Noanimals dimension: Prevented a spawn of " + event.entity.getClass().getName());
@@ -12,11 +12,17 @@ import mcjty.rftoolsdim.apiimpl.DimensionManager;
 import mcjty.rftoolsdim.apiimpl.DimletConfigurationManager;
 import mcjty.rftoolsdim.commands.CommandRftDb;
 import mcjty.rftoolsdim.commands.CommandRftDim;
+import mcjty.rftoolsdim.dimensions.ChunkFreezer;
 import mcjty.rftoolsdim.dimensions.DimensionStorage;
 import mcjty.rftoolsdim.dimensions.ModDimensions;
+import mcjty.rftoolsdim.dimensions.PowerScheduler;
 import mcjty.rftoolsdim.dimensions.RfToolsDimensionManager;
 import mcjty.rftoolsdim.dimensions.dimlets.DimletRandomizer;
 import mcjty.rftoolsdim.dimensions.dimlets.KnownDimletConfiguration;
+import mcjty.rftoolsdim.dimensions.world.CascadeDetector;
+import mcjty.rftoolsdim.dimensions.world.ChunkPregenerator;
+import mcjty.rftoolsdim.dimensions.world.ChunkPrimerPipeline;
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import mcjty.rftoolsdim.items.ModItems;
 import mcjty.rftoolsdim.network.DimensionSyncChannelHandler;
 import mcjty.rftoolsdim.proxy.CommonProxy;
@@ -139,6 +145,12 @@ public class RFToolsDim implements ModBase {
         RfToolsDimensionManager.cleanupDimensionInformation();
         RfToolsDimensionManager.clearInstance();
         DimensionStorage.clearInstance();
+        PowerScheduler.clearInstance();
+        ChunkPrimerPipeline.shutdown();
+        GenerationContext.clearPool();
+        ChunkPregenerator.clearInstance();
+        CascadeDetector.clear();
+        ChunkFreezer.clear();
         KnownDimletConfiguration.init();
         DimletRandomizer.init();
     }
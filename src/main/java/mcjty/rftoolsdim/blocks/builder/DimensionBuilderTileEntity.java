@@ -179,8 +179,8 @@ public class DimensionBuilderTileEntity extends GenericEnergyReceiverTileEntity
             if (!isCreative()) {
                 consumeEnergy(rf);
             }
-            dimensionStorage.setEnergyLevel(id, energy + rf);
-            dimensionStorage.save(worldObj);
+            // Collected by the storage and committed for all builders at once.
+            dimensionStorage.addEnergy(id, rf);
         }
     }
 
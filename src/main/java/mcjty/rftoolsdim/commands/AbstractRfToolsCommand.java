@@ -40,6 +40,18 @@ public abstract class AbstractRfToolsCommand implements RfToolsCommand {
         return value;
     }
 
+    /**
+     * Fetch an optional dimension that can be followed by an optional keyword (like "reset").
+     * If the parameter at 'index' is missing or is the keyword the dimension of the sender is used.
+     */
+    protected int fetchDimension(ICommandSender sender, String[] args, int index, String keyword) {
+        String value = fetchString(sender, args, index, keyword);
+        if (keyword.equals(value)) {
+            return sender.getEntityWorld().provider.getDimensionId();
+        }
+        return fetchInt(sender, args, index, 0);
+    }
+
     protected float fetchFloat(ICommandSender sender, String[] args, int index, float defaultValue) {
         float value;
         try {
@@ -0,0 +1,57 @@
+package mcjty.rftoolsdim.commands;
+
+import mcjty.rftoolsdim.dimensions.world.CascadeDetector;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.util.ChatComponentText;
+import net.minecraft.util.EnumChatFormatting;
+
+import java.util.Map;
+
+public class CmdCascades extends AbstractRfToolsCommand {
+    @Override
+    public String getHelp() {
+        return "[<dimension>] [reset]";
+    }
+
+    @Override
+    public String getCommand() {
+        return "cascades";
+    }
+
+    @Override
+    public int getPermissionLevel() {
+        return 2;
+    }
+
+    @Override
+    public boolean isClientSide() {
+        return false;
+    }
+
+    @Override
+    public void execute(ICommandSender sender, String[] args) {
+        if (args.length > 3) {
+            sender.addChatMessage(new ChatComponentText(EnumChatFormatting.RED + "Too many parameters!"));
+            return;
+        }
+
+        int dim = fetchDimension(sender, args, 1, "reset");
+        boolean reset = args.length > 1 && "reset".equals(args[args.length - 1]);
+
+        if (reset) {
+            CascadeDetector.resetCascades(dim);
+            sender.addChatMessage(new ChatComponentText("Cascading generation counters of dimension " + dim + " are reset"));
+            return;
+        }
+
+        Map<String, Integer> cascades = CascadeDetector.getCascades(dim);
+        sender.addChatMessage(new ChatComponentText(EnumChatFormatting.YELLOW + "Chunks generated by cascading features in dimension " + dim + ":"));
+        if (cascades.isEmpty()) {
+            sender.addChatMessage(new ChatComponentText("None"));
+        }
+        for (Map.Entry<String, Integer> entry : cascades.entrySet()) {
+            sender.addChatMessage(new ChatComponentText(entry.getKey() + ": " + entry.getValue() + " chunks"));
+        }
+        sender.addChatMessage(new ChatComponentText("Deferred writes waiting for a chunk: " + CascadeDetector.getDeferredCount(dim)));
+    }
+}
@@ -0,0 +1,74 @@
+package mcjty.rftoolsdim.commands;
+
+import mcjty.rftoolsdim.dimensions.world.GenerationStage;
+import mcjty.rftoolsdim.dimensions.world.GenericChunkProvider;
+import mcjty.rftoolsdim.dimensions.world.GenericWorldProvider;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.util.ChatComponentText;
+import net.minecraft.util.EnumChatFormatting;
+import net.minecraft.world.World;
+import net.minecraftforge.common.DimensionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CmdGenTimings extends AbstractRfToolsCommand {
+    @Override
+    public String getHelp() {
+        return "[<dimension>] [reset]";
+    }
+
+    @Override
+    public String getCommand() {
+        return "gentimings";
+    }
+
+    @Override
+    public int getPermissionLevel() {
+        return 2;
+    }
+
+    @Override
+    public boolean isClientSide() {
+        return false;
+    }
+
+    @Override
+    public void execute(ICommandSender sender, String[] args) {
+        if (args.length > 3) {
+            sender.addChatMessage(new ChatComponentText(EnumChatFormatting.RED + "Too many parameters!"));
+            return;
+        }
+
+        int dim = fetchDimension(sender, args, 1, "reset");
+        boolean reset = args.length > 1 && "reset".equals(args[args.length - 1]);
+
+        World world = DimensionManager.getWorld(dim);
+        if (world == null || !(world.provider instanceof GenericWorldProvider)) {
+            sender.addChatMessage(new ChatComponentText(EnumChatFormatting.RED + "Not a loaded RFTools dimension!"));
+            return;
+        }
+        GenericChunkProvider chunkProvider = ((GenericWorldProvider) world.provider).getGenericChunkProvider();
+        if (chunkProvider == null) {
+            sender.addChatMessage(new ChatComponentText(EnumChatFormatting.RED + "This dimension has no chunk generator yet!"));
+            return;
+        }
+
+        List<GenerationStage> stages = new ArrayList<>(chunkProvider.getPrimerStages());
+        stages.addAll(chunkProvider.getChunkStages());
+        if (reset) {
+            for (GenerationStage stage : stages) {
+                stage.resetTimings();
+            }
+            sender.addChatMessage(new ChatComponentText("Generation timings of dimension " + dim + " are reset"));
+            return;
+        }
+
+        sender.addChatMessage(new ChatComponentText(EnumChatFormatting.YELLOW + "Generation timings for dimension " + dim + " (microseconds):"));
+        for (GenerationStage stage : stages) {
+            sender.addChatMessage(new ChatComponentText(String.format("%s: %d chunks, avg %d, p50 <%d, p99 <%d, max %d, total %d ms",
+                    stage.getName(), stage.getCount(), stage.getAverageNanos() / 1000, stage.getPercentileNanos(50) / 1000,
+                    stage.getPercentileNanos(99) / 1000, stage.getMaxNanos() / 1000, stage.getTotalNanos() / 1000000)));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package mcjty.rftoolsdim.commands;
+
+import mcjty.rftoolsdim.config.WorldgenConfiguration;
+import mcjty.rftoolsdim.dimensions.RfToolsDimensionManager;
+import mcjty.rftoolsdim.dimensions.world.ChunkPregenerator;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.util.ChatComponentText;
+import net.minecraft.util.EnumChatFormatting;
+import net.minecraft.world.World;
+
+public class CmdPregen extends AbstractRfToolsCommand {
+    @Override
+    public String getHelp() {
+        return "[<dimension> <radius>|stop]";
+    }
+
+    @Override
+    public String getCommand() {
+        return "pregen";
+    }
+
+    @Override
+    public int getPermissionLevel() {
+        return 3;
+    }
+
+    @Override
+    public boolean isClientSide() {
+        return false;
+    }
+
+    @Override
+    public void execute(ICommandSender sender, String[] args) {
+        World world = sender.getEntityWorld();
+        ChunkPregenerator pregenerator = ChunkPregenerator.getPregenerator(world);
+
+        if (args.length < 2) {
+            if (pregenerator.getJobs().isEmpty()) {
+                sender.addChatMessage(new ChatComponentText("No dimensions are being pregenerated"));
+            }
+            for (ChunkPregenerator.PregenJob job : pregenerator.getJobs()) {
+                sender.addChatMessage(new ChatComponentText("Dimension " + job.getDimension() + " (radius " + job.getRadius() + "): "
+                        + job.getPercentage() + "% (" + job.getIndex() + "/" + job.getTotal() + ")" + (job.isPaused() ? " paused" : "")));
+            }
+            return;
+        } else if (args.length < 3) {
+            sender.addChatMessage(new ChatComponentText(EnumChatFormatting.RED + "The radius parameter is missing!"));
+            return;
+        } else if (args.length > 3) {
+            sender.addChatMessage(new ChatComponentText(EnumChatFormatting.RED + "Too many parameters!"));
+            return;
+        }
+
+        int dim = fetchInt(sender, args, 1, 0);
+        RfToolsDimensionManager dimensionManager = RfToolsDimensionManager.getDimensionManager(world);
+        if (dimensionManager.getDimensionInformation(dim) == null) {
+            sender.addChatMessage(new ChatComponentText(EnumChatFormatting.RED + "Not an RFTools dimension!"));
+            return;
+        }
+
+        if ("stop".equals(args[2])) {
+            if (pregenerator.stopJob(dim)) {
+                pregenerator.save(world);
+                sender.addChatMessage(new ChatComponentText("Pregeneration of dimension " + dim + " stopped"));
+            } else {
+                sender.addChatMessage(new ChatComponentText(EnumChatFormatting.RED + "Dimension " + dim + " is not being pregenerated!"));
+            }
+            return;
+        }
+
+        int radius = fetchInt(sender, args, 2, 0);
+        if (radius < 0 || radius > WorldgenConfiguration.pregenMaxRadius) {
+            sender.addChatMessage(new ChatComponentText(EnumChatFormatting.RED + "The radius must be between 0 and " + WorldgenConfiguration.pregenMaxRadius + "!"));
+            return;
+        }
+
+        String requester = sender instanceof EntityPlayerMP ? sender.getName() : null;
+        pregenerator.startJob(dim, radius, requester);
+        pregenerator.save(world);
+        sender.addChatMessage(new ChatComponentText("Pregenerating " + ((radius * 2 + 1) * (radius * 2 + 1)) + " chunks in dimension " + dim));
+    }
+}
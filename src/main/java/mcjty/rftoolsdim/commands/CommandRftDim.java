@@ -23,6 +23,9 @@ public class CommandRftDim extends DefaultCommand {
 //        registerCommand(new CmdSaveDim());
 //        registerCommand(new CmdLoadDim());
         registerCommand(new CmdSetOwner());
+        registerCommand(new CmdPregen());
+        registerCommand(new CmdGenTimings());
+        registerCommand(new CmdCascades());
     }
 
     @Override
@@ -28,6 +28,7 @@ public class GeneralConfiguration {
     public static boolean editorCanDeleteDimensions = false;
     public static boolean dimensionFolderIsDeletedWithSafeDel = true;
     public static int maxDimensionsPerPlayer = -1;
+    public static int idleUnloadSeconds = 300;      // Unload an idle RFTools dimension after this many seconds (0 = never)
 
     public static float endermanDimletPartDrop = 0.02f;
     public static int minParcelContents = 3;
@@ -73,6 +74,8 @@ public class GeneralConfiguration {
                 "If this is enabled the /rftdim safedel <id> command will also delete the DIM<id> folder. If false then this has to be done manually").getBoolean();
         maxDimensionsPerPlayer = cfg.get(CATEGORY_GENERAL, "maxDimensionsPerPlayer", maxDimensionsPerPlayer,
                 "The maximum amount of dimensions per player. This requires that dimensions are build with an owned builder (dimensionBuilderNeedsOwner must be set). -1 means no maximum").getInt();
+        idleUnloadSeconds = cfg.get(CATEGORY_GENERAL, "idleUnloadSeconds", idleUnloadSeconds,
+                "An RFTools dimension without players, force loaded chunks or pregeneration job is unloaded after it has been idle for this many seconds. It is loaded again as soon as it is needed. 0 means idle dimensions are never unloaded by RFTools").getInt();
 
 
         brutalMobsFactor = cfg.get(CATEGORY_GENERAL, "brutalMobsFactor", brutalMobsFactor,
@@ -9,6 +9,7 @@ public class MachineConfiguration {
     public static int EXTRACTOR_SENDPERTICK = 1000;
     public static int BUILDER_MAXENERGY = 10000000;
     public static int BUILDER_RECEIVEPERTICK = 50000;
+    public static int builderCommitThreshold = 1000000;   // Pending builder RF for a dimension that is committed to the dimension storage right away.
     public static int EDITOR_MAXENERGY = 5000000;
     public static int EDITOR_RECEIVEPERTICK = 50000;
     public static int WORKBENCH_MAXENERGY = 32000;
@@ -26,6 +27,8 @@ public class MachineConfiguration {
                                                          "Maximum RF storage that the dimension builder can hold").getInt();
         BUILDER_RECEIVEPERTICK = cfg.get(CATEGORY_MACHINES, "dimensionBuilderRFPerTick", MachineConfiguration.BUILDER_RECEIVEPERTICK,
                                                               "RF per tick that the dimension builder can receive").getInt();
+        builderCommitThreshold = cfg.get(CATEGORY_MACHINES, "dimensionBuilderCommitThreshold", MachineConfiguration.builderCommitThreshold,
+                                                              "RF given to a dimension by dimension builders is collected and committed to the dimension every 10 ticks. If this much RF is collected for a dimension it is committed immediately").getInt();
         EDITOR_MAXENERGY = cfg.get(CATEGORY_MACHINES, "dimensionEditorMaxRF", MachineConfiguration.EDITOR_MAXENERGY,
                                                         "Maximum RF storage that the dimension editor can hold").getInt();
         EDITOR_RECEIVEPERTICK = cfg.get(CATEGORY_MACHINES, "dimensionEditorRFPerTick", MachineConfiguration.EDITOR_RECEIVEPERTICK,
@@ -15,6 +15,9 @@ public class MobConfiguration {
     public static final Map<String,MobDescriptor> mobClasses = new HashMap<>();
     public static MobDescriptor defaultDescriptor;
 
+    public static int localDensityRadius = 0;
+    public static int localDensityPercentage = 25;
+
     public static void init(Configuration cfg) {
         int chance = cfg.get(CATEGORY_MOBS, "default.chance", 6).getInt();
         int mingroup = cfg.get(CATEGORY_MOBS, "default.mingroup", 1).getInt();
@@ -22,6 +25,11 @@ public class MobConfiguration {
         int maxentity = cfg.get(CATEGORY_MOBS, "default.maxentity", 10).getInt();
         defaultDescriptor = new MobDescriptor(null, chance, mingroup, maxgroup, maxentity);
 
+        localDensityRadius = cfg.get(CATEGORY_MOBS, "localDensityRadius", localDensityRadius,
+                "Radius (in chunks) around every player in which the hostile mobs of a mob dimlet are also limited locally. 0 disables the local limit").getInt();
+        localDensityPercentage = cfg.get(CATEGORY_MOBS, "localDensityPercentage", localDensityPercentage,
+                "The local limit of a hostile mob (see localDensityRadius) as a percentage of its maxentity value. The local limit for all hostile mobs together is the sum of these").getInt();
+
         initMobItem(cfg, "Zombie", 100, 8, 8, 60);
         initMobItem(cfg, "Skeleton", 100, 8, 8, 60);
         initMobItem(cfg, "Enderman", 20, 2, 4, 20);
@@ -11,6 +11,9 @@ public class PowerConfiguration {
     public static int DIMPOWER_WARN2 = 1000000;
     public static int DIMPOWER_WARN3 = 500000;
     public static int DIMPOWER_WARN_TP = 500000;    // Warn level for teleporter device.
+    public static int throttleWarn1 = 1;            // Below warn level 1 only one in this many chunks ticks at a time (1 is no throttling).
+    public static int throttleWarn2 = 1;
+    public static int throttleWarn3 = 1;
     public static int dimensionDifficulty = 1;      // -1 == whimpy, 0 == easy, 1 == normal
     public static boolean freezeUnpowered = true;   // Freeze all entities and TE's in an unpowered dimension.
     public static boolean preventSpawnUnpowered = true; // Prevent spawns in unpowered dimensions
@@ -22,6 +25,7 @@ public class PowerConfiguration {
     public static int PHASEDFIELD_CONSUMEPERTICK = 100;
     public static int phasedFieldGeneratorRange = 5;
     public static boolean phasedFieldGeneratorDebuf = true;
+    public static int powerSchedulerMaxCycles = 60; // Maximum number of power cycles (10 ticks) between two power updates of a dimension that is not loaded.
 
 
     public static void init(Configuration cfg) {
@@ -48,6 +52,12 @@ public class PowerConfiguration {
                                                     "The third level at which power warning signs are starting to be very bad").getInt();
         DIMPOWER_WARN_TP = cfg.get(CATEGORY_POWER, "dimensionPowerWarnTP", PowerConfiguration.DIMPOWER_WARN_TP,
                                                       "The level at which the teleportation system will consider a destination to be dangerous").getInt();
+        throttleWarn1 = cfg.get(CATEGORY_POWER, "throttleWarn1", PowerConfiguration.throttleWarn1,
+                                                   "Below the first power warning level only one in this many chunks of a dimension will tick (entities and tile entities) at a time. 1 means no throttling").getInt();
+        throttleWarn2 = cfg.get(CATEGORY_POWER, "throttleWarn2", PowerConfiguration.throttleWarn2,
+                                                   "Below the second power warning level only one in this many chunks of a dimension will tick (entities and tile entities) at a time. 1 means no throttling").getInt();
+        throttleWarn3 = cfg.get(CATEGORY_POWER, "throttleWarn3", PowerConfiguration.throttleWarn3,
+                                                   "Below the third power warning level only one in this many chunks of a dimension will tick (entities and tile entities) at a time. 1 means no throttling").getInt();
 
         afterCreationCostFactor = (float) cfg.get(CATEGORY_POWER, "afterCreationCostFactor", PowerConfiguration.afterCreationCostFactor,
                                                                      "If the dimension turns out to be more expensive after creation you get a factor of the actual cost extra to the RF/tick maintenance cost. If this is 0 there is no such cost. If this is 1 then you get the full cost").getDouble();
@@ -62,6 +72,8 @@ public class PowerConfiguration {
                                                      "If this flag is true RFTools will freeze all entities and machines in a dimension when the power runs out").getBoolean();
         preventSpawnUnpowered = cfg.get(CATEGORY_POWER, "preventSpawnUnpoweredDimension", PowerConfiguration.preventSpawnUnpowered,
                                                            "If this flag is true all spawns will be disabled in an unpowered dimension").getBoolean();
+        powerSchedulerMaxCycles = cfg.get(CATEGORY_POWER, "powerSchedulerMaxCycles", PowerConfiguration.powerSchedulerMaxCycles,
+                                                             "The power of a dimension that is not loaded is only updated when it crosses a warning level or runs out. This is the maximum number of power cycles (of 10 ticks) between two such updates").getInt();
     }
 
 }
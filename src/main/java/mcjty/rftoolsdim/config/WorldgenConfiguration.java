@@ -30,10 +30,20 @@ public class WorldgenConfiguration {
     public static int oreMaximumVeinCount = 3;
     public static int oreMinimumHeight = 2;
     public static int oreMaximumHeight = 40;
+    public static boolean oregenInPrimer = false;
+    public static boolean deferCascadingWrites = false;
 
     public static int enableDimletsInRFToolsDungeons = 2;
     public static boolean enableDimletsInRFToolsFrames = true;
 
+    public static int primerThreads = 0;
+    public static int primerMaxPending = 64;
+    public static int primerRequestsPerTick = 4;
+    public static int primerLookaheadTicks = 40;
+
+    public static int pregenMillisPerTick = 10;
+    public static int pregenMaxRadius = 200;
+
     public static void init(Configuration cfg) {
         dungeonChance = cfg.get(CATEGORY_WORLDGEN, "dungeonChance", dungeonChance,
                 "The chance for a dungeon to spawn in a chunk. Higher numbers mean less chance (1 in 'dungeonChance' chance)").getInt();
@@ -87,11 +97,29 @@ public class WorldgenConfiguration {
                 "Minimum y level for dimensional shard ores").getInt();
         oreMaximumHeight = cfg.get(CATEGORY_WORLDGEN, "oreMaximumHeight", oreMaximumHeight,
                 "Maximum y level for dimensional shard ores").getInt();
+        oregenInPrimer = cfg.get(CATEGORY_WORLDGEN, "oregenInPrimer", oregenInPrimer,
+                "If true the dimensional shard ore and the extra oregen are placed while the chunk is generated instead of during population. This is faster but the veins are kept inside the chunk").getBoolean();
+        deferCascadingWrites = cfg.get(CATEGORY_WORLDGEN, "deferCascadingWrites", deferCascadingWrites,
+                "If true blocks that RFTools dungeons and platforms place in chunks that are not generated yet are queued until those chunks are generated instead of forcing them to generate. The queue is not saved when the server stops").getBoolean();
 
         enableDimletsInRFToolsDungeons = cfg.get(CATEGORY_WORLDGEN, "enableDimletsInRFToolsDungeons", enableDimletsInRFToolsDungeons,
                 "The maximum number of random dimlets that can be generated in rftools dungeons (set to 0 to disable this)").getInt();
         enableDimletsInRFToolsFrames = cfg.get(CATEGORY_WORLDGEN, "enableDimletsInRFToolsFrames", enableDimletsInRFToolsFrames,
                 "If true then item frames in rftools dungeons will contain dimlets. Otherwise they will contain dimlet parts").getBoolean();
+
+        primerThreads = cfg.get(CATEGORY_WORLDGEN, "primerThreads", primerThreads,
+                "Number of background threads that generate terrain for chunks ahead of moving players in RFTools dimensions. Generation steps that post Forge events or run biome code always stay on the server thread. Set to 0 to generate everything on the server thread").getInt();
+        primerMaxPending = cfg.get(CATEGORY_WORLDGEN, "primerMaxPending", primerMaxPending,
+                "Maximum number of chunks per dimension that can be waiting in the background terrain generator").getInt();
+        primerRequestsPerTick = cfg.get(CATEGORY_WORLDGEN, "primerRequestsPerTick", primerRequestsPerTick,
+                "Maximum number of chunks per dimension that are scheduled for background terrain generation every 5 ticks").getInt();
+        primerLookaheadTicks = cfg.get(CATEGORY_WORLDGEN, "primerLookaheadTicks", primerLookaheadTicks,
+                "How many ticks ahead of a moving player the background terrain generator tries to predict the needed chunks").getInt();
+
+        pregenMillisPerTick = cfg.get(CATEGORY_WORLDGEN, "pregenMillisPerTick", pregenMillisPerTick,
+                "Maximum number of milliseconds per server tick that '/rftdim pregen' may spend generating chunks").getInt();
+        pregenMaxRadius = cfg.get(CATEGORY_WORLDGEN, "pregenMaxRadius", pregenMaxRadius,
+                "Maximum radius (in chunks) that can be given to '/rftdim pregen'").getInt();
     }
 
 }
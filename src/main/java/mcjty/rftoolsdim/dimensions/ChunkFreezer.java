@@ -0,0 +1,154 @@
+package mcjty.rftoolsdim.dimensions;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.ClassInheritanceMultiMap;
+import net.minecraft.util.ITickable;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+
+import java.util.*;
+
+/**
+ * Freezes the loaded chunks of an unpowered dimension one by one. The entities (except players)
+ * and tile entities of a frozen chunk are taken out of the loaded lists of the world so that
+ * they don't tick. They stay in their chunk and are saved with it as usual.
+ *
+ * Every time a dimension is frozen again (this happens every power cycle while it has no power)
+ * all its frozen chunks are swept: entities that walked or were spawned into a frozen chunk,
+ * tile entities that were placed in one and the contents of a frozen chunk that was unloaded and
+ * loaded again are all in the loaded lists again. Only the chunks that came out of range of a
+ * phased field generator are put back in the loaded lists.
+ *
+ * Frozen entities are not removed through World.onEntityRemoved() so they still count for the
+ * spawn caps of the extra mobs (EntityClassCounter) just like they do for LocalMobDensity. They
+ * are still in the world and will tick again as soon as the dimension has power (or, for a
+ * throttled dimension, in one of the next cycles).
+ * Only used from the server thread.
+ */
+public class ChunkFreezer {
+
+    // The keys (see ChunkCoordIntPair.chunkXZ2Int) of the frozen chunks per dimension. Only keys
+    // are kept so that a frozen dimension that unloads doesn't keep its chunks in memory.
+    private static final Map<Integer, Set<Long>> frozen = new HashMap<>();
+
+    /**
+     * Freeze all loaded chunks of the world except the ones in 'thawed' (see
+     * ChunkCoordIntPair.chunkXZ2Int). Those are unfrozen if they were frozen.
+     */
+    public static void freeze(WorldServer world, Set<Long> thawed) {
+        freeze(world, thawed, 1, 0);
+    }
+
+    /**
+     * Throttle a dimension: the loaded chunks are divided in 'slices' groups and only the chunks
+     * of one group (selected by 'time') and the ones in 'thawed' are not frozen. Calling this
+     * with a different time lets another group tick.
+     */
+    public static void throttle(WorldServer world, Set<Long> thawed, int slices, long time) {
+        freeze(world, thawed, slices, (int) (time % slices));
+    }
+
+    private static void freeze(WorldServer world, Set<Long> thawed, int slices, int slice) {
+        int dimension = world.provider.getDimensionId();
+        Set<Long> oldFrozen = frozen.get(dimension);
+        Set<Long> newFrozen = new HashSet<>();
+
+        Set<Entity> entities = Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+        Set<TileEntity> tileEntities = Collections.newSetFromMap(new IdentityHashMap<TileEntity, Boolean>());
+        List<Chunk> toThaw = new ArrayList<>();
+        for (Object o : world.theChunkProviderServer.loadedChunks) {
+            Chunk chunk = (Chunk) o;
+            long key = ChunkCoordIntPair.chunkXZ2Int(chunk.xPosition, chunk.zPosition);
+            if (thawed.contains(key) || (slices > 1 && Math.floorMod(chunk.xPosition + chunk.zPosition, slices) == slice)) {
+                if (oldFrozen != null && oldFrozen.contains(key)) {
+                    toThaw.add(chunk);
+                }
+            } else {
+                newFrozen.add(key);
+                for (ClassInheritanceMultiMap<Entity> entityList : chunk.getEntityLists()) {
+                    for (Entity entity : entityList) {
+                        if (!(entity instanceof EntityPlayer)) {
+                            entities.add(entity);
+                        }
+                    }
+                }
+                tileEntities.addAll(chunk.getTileEntityMap().values());
+            }
+        }
+        frozen.put(dimension, newFrozen);
+
+        // One pass over the loaded lists for all chunks that are frozen now.
+        if (!entities.isEmpty()) {
+            world.loadedEntityList.removeAll(entities);
+        }
+        if (!tileEntities.isEmpty()) {
+            world.loadedTileEntityList.removeAll(tileEntities);
+            world.tickableTileEntities.removeAll(tileEntities);
+        }
+        thaw(world, toThaw);
+    }
+
+    /**
+     * Unfreeze all frozen chunks of the world that are still loaded.
+     */
+    public static void unfreeze(WorldServer world) {
+        Set<Long> keys = frozen.remove(world.provider.getDimensionId());
+        if (keys == null) {
+            return;
+        }
+        List<Chunk> toThaw = new ArrayList<>();
+        for (long key : keys) {
+            int chunkX = (int) key;
+            int chunkZ = (int) (key >> 32);
+            if (world.theChunkProviderServer.chunkExists(chunkX, chunkZ)) {
+                toThaw.add(world.theChunkProviderServer.provideChunk(chunkX, chunkZ));
+            }
+        }
+        thaw(world, toThaw);
+    }
+
+    // Put the entities and tile entities of these chunks back in the loaded lists. Entities and tile
+    // entities that were added to the world while the chunk was frozen are already there.
+    private static void thaw(WorldServer world, List<Chunk> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        Set<Entity> loadedEntities = Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+        loadedEntities.addAll(world.loadedEntityList);
+        Set<TileEntity> loadedTileEntities = Collections.newSetFromMap(new IdentityHashMap<TileEntity, Boolean>());
+        loadedTileEntities.addAll(world.loadedTileEntityList);
+
+        for (Chunk chunk : chunks) {
+            chunk.isChunkLoaded = true;
+            for (ClassInheritanceMultiMap<Entity> entityList : chunk.getEntityLists()) {
+                for (Entity entity : entityList) {
+                    if (!entity.isDead && loadedEntities.add(entity)) {
+                        world.loadedEntityList.add(entity);
+                    }
+                }
+            }
+            for (TileEntity tileEntity : chunk.getTileEntityMap().values()) {
+                if (!tileEntity.isInvalid() && loadedTileEntities.add(tileEntity)) {
+                    world.loadedTileEntityList.add(tileEntity);
+                    if (tileEntity instanceof ITickable) {
+                        world.tickableTileEntities.add(tileEntity);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget the frozen chunks of a dimension whose world is unloaded.
+     */
+    public static void forget(int dimension) {
+        frozen.remove(dimension);
+    }
+
+    public static void clear() {
+        frozen.clear();
+    }
+}
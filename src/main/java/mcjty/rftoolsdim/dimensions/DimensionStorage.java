@@ -1,5 +1,6 @@
 package mcjty.rftoolsdim.dimensions;
 
+import mcjty.rftoolsdim.config.MachineConfiguration;
 import mcjty.rftoolsdim.config.PowerConfiguration;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
@@ -8,14 +9,12 @@ import net.minecraft.world.WorldSavedData;
 import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.common.util.Constants;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class DimensionStorage extends WorldSavedData {
     public static final String DIMSTORAGE_NAME = "RFToolsDimensionStorage";
     private static DimensionStorage instance = null;
 
-    private final Map<Integer,Integer> energy = new HashMap<Integer, Integer>();
+    private final EnergyStore energy = new EnergyStore();
+    private long cycle = 0;
 
     public static void clearInstance() {
         if (instance != null) {
@@ -30,7 +29,10 @@ public class DimensionStorage extends WorldSavedData {
 
     public void save(World world) {
         world.getMapStorage().setData(DIMSTORAGE_NAME, this);
-        markDirty();
+        // Only rewrite the storage if an energy level actually changed.
+        if (energy.hasChanges()) {
+            markDirty();
+        }
     }
 
     public static DimensionStorage getDimensionStorage(World world) {
@@ -45,16 +47,27 @@ public class DimensionStorage extends WorldSavedData {
     }
 
     public int getEnergyLevel(int id) {
-        if (energy.containsKey(id)) {
-            return energy.get(id);
-        } else {
-            return 0;
-        }
+        return energy.getLevel(id, cycle);
+    }
+
+    /**
+     * Set the current power cycle. The drain of every dimension is applied up to this cycle.
+     */
+    public void setCycle(long cycle) {
+        this.cycle = cycle;
+    }
+
+    /**
+     * Set the RF that the dimension loses every power cycle from now on.
+     */
+    public void setDrain(int id, int perCycle) {
+        energy.setDrain(id, Math.max(0, perCycle), cycle);
     }
 
     public void setEnergyLevel(int id, int energyLevel) {
         int old = getEnergyLevel(id);
-        energy.put(id, energyLevel);
+        energy.setLevel(id, energyLevel, cycle);
+        PowerScheduler.wakeUp(id);
         if (PowerConfiguration.freezeUnpowered) {
             World world = DimensionManager.getWorld(id);
             if (world != null) {
@@ -67,8 +80,47 @@ public class DimensionStorage extends WorldSavedData {
         }
     }
 
+    /**
+     * Give energy to a dimension (used by the dimension builders). The energy counts for the
+     * level immediately but is collected per dimension and only committed with commitEnergy()
+     * (every power cycle) or when MachineConfiguration.builderCommitThreshold is reached.
+     */
+    public void addEnergy(int id, int rf) {
+        if (rf <= 0) {
+            return;
+        }
+        if (energy.addPending(id, rf) >= MachineConfiguration.builderCommitThreshold) {
+            commitEnergy();
+        }
+    }
+
+    /**
+     * Commit the energy given with addEnergy() for all dimensions.
+     */
+    public void commitEnergy() {
+        if (!energy.hasPending()) {
+            return;
+        }
+        for (int slot = 0 ; slot < energy.getCapacity() ; slot++) {
+            if (energy.isUsed(slot) && energy.getPendingInSlot(slot) != 0) {
+                int id = energy.getId(slot);
+                int old = energy.getCommittedInSlot(slot, cycle);
+                int level = old + energy.getPendingInSlot(slot);
+                energy.setLevel(id, level, cycle);
+                PowerScheduler.wakeUp(id);
+                if (PowerConfiguration.freezeUnpowered && old == 0 && level > 0) {
+                    World world = DimensionManager.getWorld(id);
+                    if (world != null) {
+                        RfToolsDimensionManager.unfreezeDimension(world);
+                    }
+                }
+            }
+        }
+    }
+
     public void removeDimension(int id) {
         energy.remove(id);
+        PowerScheduler.forget(id);
     }
 
     @Override
@@ -79,19 +131,23 @@ public class DimensionStorage extends WorldSavedData {
             NBTTagCompound tc = lst.getCompoundTagAt(i);
             int id = tc.getInteger("id");
             int rf = tc.getInteger("energy");
-            energy.put(id, rf);
+            energy.setLevel(id, rf, cycle);
         }
+        energy.clearChanges();
     }
 
     @Override
     public void writeToNBT(NBTTagCompound tagCompound) {
         NBTTagList lst = new NBTTagList();
-        for (Map.Entry<Integer,Integer> me : energy.entrySet()) {
-            NBTTagCompound tc = new NBTTagCompound();
-            tc.setInteger("id", me.getKey());
-            tc.setInteger("energy", me.getValue());
-            lst.appendTag(tc);
+        for (int slot = 0 ; slot < energy.getCapacity() ; slot++) {
+            if (energy.isUsed(slot)) {
+                NBTTagCompound tc = new NBTTagCompound();
+                tc.setInteger("id", energy.getId(slot));
+                tc.setInteger("energy", energy.getLevelInSlot(slot, cycle));
+                lst.appendTag(tc);
+            }
         }
         tagCompound.setTag("dimensions", lst);
+        energy.clearChanges();
     }
 }
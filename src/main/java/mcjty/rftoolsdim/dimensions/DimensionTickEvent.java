@@ -1,10 +1,11 @@
 package mcjty.rftoolsdim.dimensions;
 
+import mcjty.lib.varia.Logging;
 import mcjty.rftoolsdim.RFToolsDim;
 import mcjty.rftoolsdim.config.GeneralConfiguration;
 import mcjty.rftoolsdim.config.PowerConfiguration;
-import mcjty.rftoolsdim.dimensions.description.DimensionDescriptor;
 import mcjty.rftoolsdim.dimensions.dimlets.types.Patreons;
+import mcjty.rftoolsdim.dimensions.world.ChunkPregenerator;
 import mcjty.rftoolsdim.dimensions.types.EffectType;
 import net.minecraft.entity.item.EntityFireworkRocket;
 import net.minecraft.entity.player.EntityPlayer;
@@ -19,6 +20,7 @@ import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.ForgeChunkManager;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 
@@ -33,6 +35,12 @@ public class DimensionTickEvent {
 
     private static Random random = new Random();
 
+    // The RFTools dimensions that were loaded in the previous power cycle.
+    private Set<Integer> loadedDimensions = new HashSet<>();
+
+    // The cycle since which a loaded dimension is idle (see handleIdle()).
+    private final Map<Integer, Long> idleSince = new HashMap<>();
+
     @SubscribeEvent
     public void onServerTick(TickEvent.ServerTickEvent evt) {
         if (evt.phase == TickEvent.Phase.START) {
@@ -58,21 +66,42 @@ public class DimensionTickEvent {
 
         if (!dimensionManager.getDimensions().isEmpty()) {
             DimensionStorage dimensionStorage = DimensionStorage.getDimensionStorage(entityWorld);
+            PowerScheduler scheduler = PowerScheduler.getScheduler();
+            long cycle = scheduler.nextCycle();
+            dimensionStorage.setCycle(cycle);
+            dimensionStorage.commitEnergy();
+            if (cycle == 1) {
+                // First cycle since the server started: every dimension is due.
+                loadedDimensions.clear();
+                idleSince.clear();
+                for (Integer id : dimensionManager.getDimensions().keySet()) {
+                    scheduler.schedule(id, cycle);
+                }
+            }
 
-            for (Map.Entry<Integer, DimensionDescriptor> entry : dimensionManager.getDimensions().entrySet()) {
-                Integer id = entry.getKey();
-                // If there is an activity probe we only drain power if the dimension is loaded (a player is there or a chunkloader)
-                DimensionInformation information = dimensionManager.getDimensionInformation(id);
-                WorldServer world = DimensionManager.getWorld(id);
-
-                // Power handling.
-                if (world != null || information.getProbeCounter() == 0) {
-                    handlePower(doEffects, dimensionStorage, entry, id, information);
+            // Loaded dimensions can have players so they are handled every cycle. A dimension that
+            // was unloaded since the last cycle is handled once more because its drain can change.
+            Set<Integer> loaded = new HashSet<>();
+            for (WorldServer world : DimensionManager.getWorlds()) {
+                int id = world.provider.getDimensionId();
+                if (dimensionManager.getDimensions().containsKey(id)) {
+                    loaded.add(id);
+                    handleDimension(doEffects, dimensionManager, dimensionStorage, scheduler, id, world);
+                    handleIdle(world, cycle);
+                }
+            }
+            idleSince.keySet().retainAll(loaded);
+            for (Integer id : loadedDimensions) {
+                if (!loaded.contains(id) && dimensionManager.getDimensions().containsKey(id)) {
+                    handleDimension(doEffects, dimensionManager, dimensionStorage, scheduler, id, null);
                 }
+            }
+            loadedDimensions = loaded;
 
-                // Special effect handling.
-                if (world != null && !world.playerEntities.isEmpty()) {
-                    handleRandomEffects(world, information);
+            // All other dimensions only when they are due.
+            for (Integer id : scheduler.pollDue()) {
+                if (!loaded.contains(id) && dimensionManager.getDimensions().containsKey(id)) {
+                    handleDimension(doEffects, dimensionManager, dimensionStorage, scheduler, id, null);
                 }
             }
 
@@ -80,27 +109,92 @@ public class DimensionTickEvent {
         }
     }
 
-    private void handlePower(boolean doEffects, DimensionStorage dimensionStorage, Map.Entry<Integer, DimensionDescriptor> entry, Integer id, DimensionInformation information) {
-        int cost = 0;
-        if (PowerConfiguration.dimensionDifficulty != -1) {
-            cost = information.getActualRfCost();
-            if (cost == 0) {
-                cost = entry.getValue().getRfMaintainCost();
+    private void handleDimension(boolean doEffects, RfToolsDimensionManager dimensionManager, DimensionStorage dimensionStorage, PowerScheduler scheduler, Integer id, WorldServer world) {
+        // If there is an activity probe we only drain power if the dimension is loaded (a player is there or a chunkloader)
+        DimensionInformation information = dimensionManager.getDimensionInformation(id);
+
+        // Power handling.
+        int drain = 0;
+        int power = dimensionStorage.getEnergyLevel(id);
+        if (world != null || information.getProbeCounter() == 0) {
+            int cost = 0;
+            if (PowerConfiguration.dimensionDifficulty != -1) {
+                cost = information.getActualRfCost();
+                if (cost == 0) {
+                    cost = dimensionManager.getDimensionDescriptor(id).getRfMaintainCost();
+                }
             }
+            drain = cost * MAXTICKS;
+            handlePower(doEffects, dimensionStorage, id, information, power, cost);
         }
+        dimensionStorage.setDrain(id, drain);
+        scheduler.schedule(id, scheduler.getCycle() + PowerScheduler.cyclesToNextThreshold(power, drain));
 
-        int power = dimensionStorage.getEnergyLevel(id);
-        power -= cost * MAXTICKS;
-        if (power < 0) {
-            power = 0;
+        // Special effect handling.
+        if (world != null && !world.playerEntities.isEmpty()) {
+            handleRandomEffects(world, information);
+        }
+    }
+
+    /**
+     * Unload a dimension that has been idle (no players, no force loaded chunks and no
+     * pregeneration job) for GeneralConfiguration.idleUnloadSeconds. All its chunks are queued
+     * for unloading and Forge unloads the world when the last one is gone. It is loaded again
+     * when something needs it. If it is still loaded after another grace period (a chunk was
+     * loaded again in the meantime) this is repeated.
+     */
+    private void handleIdle(WorldServer world, long cycle) {
+        int id = world.provider.getDimensionId();
+        if (GeneralConfiguration.idleUnloadSeconds <= 0 || !world.playerEntities.isEmpty()
+                || !ForgeChunkManager.getPersistentChunksFor(world).isEmpty()
+                || ChunkPregenerator.getPregenerator(world).hasJob(id)) {
+            idleSince.remove(id);
+            return;
         }
+        Long since = idleSince.get(id);
+        if (since == null) {
+            idleSince.put(id, cycle);
+        } else if ((cycle - since) * MAXTICKS >= GeneralConfiguration.idleUnloadSeconds * 20L) {
+            Logging.log("Unloading idle dimension " + id);
+            world.theChunkProviderServer.unloadAllChunks();
+            idleSince.put(id, cycle);
+        }
+    }
 
+    private void handlePower(boolean doEffects, DimensionStorage dimensionStorage, Integer id, DimensionInformation information, int power, int cost) {
+        // The drain since the last update is already subtracted by the storage.
         handleLowPower(id, power, doEffects, cost);
         if (doEffects && power > 0) {
             handleEffectsForDimension(power, id, information);
         }
 
         dimensionStorage.setEnergyLevel(id, power);
+        handleThrottle(id, power);
+    }
+
+    // Between fully ticking and frozen a dimension with low power only ticks a part of its chunks.
+    private void handleThrottle(Integer id, int power) {
+        if (power <= 0 && PowerConfiguration.freezeUnpowered) {
+            // Frozen by the dimension storage.
+            return;
+        }
+        WorldServer world = DimensionManager.getWorld(id);
+        if (world == null) {
+            return;
+        }
+        int slices = 1;
+        if (power < PowerConfiguration.DIMPOWER_WARN3) {
+            slices = PowerConfiguration.throttleWarn3;
+        } else if (power < PowerConfiguration.DIMPOWER_WARN2) {
+            slices = PowerConfiguration.throttleWarn2;
+        } else if (power < PowerConfiguration.DIMPOWER_WARN1) {
+            slices = PowerConfiguration.throttleWarn1;
+        }
+        if (slices > 1) {
+            RfToolsDimensionManager.throttleDimension(world, slices, PowerScheduler.getScheduler().getCycle());
+        } else {
+            RfToolsDimensionManager.unfreezeDimension(world);
+        }
     }
 
     private void handleRandomEffects(WorldServer world, DimensionInformation information) {
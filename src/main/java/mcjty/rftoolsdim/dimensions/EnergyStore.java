@@ -0,0 +1,269 @@
+package mcjty.rftoolsdim.dimensions;
+
+import java.util.Arrays;
+
+/**
+ * The energy of all dimensions as kept by DimensionStorage. This is an open addressing hash
+ * table (linear probing) from dimension id to energy so that energy updates don't box.
+ *
+ * Every entry also has the drain of the dimension: the stored level is the level at power cycle
+ * 'since' and 'drain' RF is subtracted for every cycle after that (see PowerScheduler).
+ * An entry is dirty when its stored level changed since the store was last written.
+ *
+ * Energy that is added by dimension builders is first kept as pending energy on top of the
+ * level. It counts for the level right away but is only committed (and makes the entry dirty)
+ * with commitPending().
+ */
+class EnergyStore {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private boolean[] used;
+    private int[] levels;
+    private int[] drains;
+    private long[] since;
+    private int[] pending;
+    private boolean[] dirty;
+
+    private int size = 0;
+    private int dirtyCount = 0;
+    private int pendingCount = 0;
+    private boolean removed = false;
+
+    EnergyStore() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        used = new boolean[capacity];
+        levels = new int[capacity];
+        drains = new int[capacity];
+        since = new long[capacity];
+        pending = new int[capacity];
+        dirty = new boolean[capacity];
+    }
+
+    private int home(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    private int find(int key) {
+        int i = home(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        return -1;
+    }
+
+    // Find the slot for this key and add it (with level 0) if it isn't there yet.
+    private int findOrAdd(int key) {
+        int i = home(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        used[i] = true;
+        keys[i] = key;
+        levels[i] = 0;
+        drains[i] = 0;
+        since[i] = 0;
+        pending[i] = 0;
+        dirty[i] = true;
+        dirtyCount++;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+            return find(key);
+        }
+        return i;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        int[] oldLevels = levels;
+        int[] oldDrains = drains;
+        long[] oldSince = since;
+        int[] oldPending = pending;
+        boolean[] oldDirty = dirty;
+        allocate(oldKeys.length * 2);
+        for (int j = 0 ; j < oldKeys.length ; j++) {
+            if (oldUsed[j]) {
+                int i = home(oldKeys[j]);
+                while (used[i]) {
+                    i = (i + 1) & (keys.length - 1);
+                }
+                used[i] = true;
+                keys[i] = oldKeys[j];
+                levels[i] = oldLevels[j];
+                drains[i] = oldDrains[j];
+                since[i] = oldSince[j];
+                pending[i] = oldPending[j];
+                dirty[i] = oldDirty[j];
+            }
+        }
+    }
+
+    private void setLevel(int i, int level) {
+        if (levels[i] != level) {
+            levels[i] = level;
+            if (!dirty[i]) {
+                dirty[i] = true;
+                dirtyCount++;
+            }
+        }
+    }
+
+    // The committed level (without pending energy).
+    private int getCommittedAt(int i, long cycle) {
+        int level = levels[i];
+        if (drains[i] > 0 && level > 0) {
+            long drained = level - (long) drains[i] * (cycle - since[i]);
+            level = drained < 0 ? 0 : (int) drained;
+        }
+        return level;
+    }
+
+    private int getLevelAt(int i, long cycle) {
+        return getCommittedAt(i, cycle) + pending[i];
+    }
+
+    private void setPending(int i, int amount) {
+        if (pending[i] == 0 && amount != 0) {
+            pendingCount++;
+        } else if (pending[i] != 0 && amount == 0) {
+            pendingCount--;
+        }
+        pending[i] = amount;
+    }
+
+    /**
+     * The level of the dimension at this cycle or 0 if it has no energy.
+     */
+    int getLevel(int id, long cycle) {
+        int i = find(id);
+        return i == -1 ? 0 : getLevelAt(i, cycle);
+    }
+
+    /**
+     * Set the level of the dimension. This replaces pending energy.
+     */
+    void setLevel(int id, int level, long cycle) {
+        int i = findOrAdd(id);
+        setLevel(i, level);
+        setPending(i, 0);
+        since[i] = cycle;
+    }
+
+    /**
+     * Add pending energy to the dimension and return the total pending energy.
+     */
+    int addPending(int id, int amount) {
+        int i = findOrAdd(id);
+        setPending(i, pending[i] + amount);
+        return pending[i];
+    }
+
+    /**
+     * Apply the current drain up to this cycle and drain 'drain' RF per cycle from now on.
+     */
+    void setDrain(int id, int drain, long cycle) {
+        int i = findOrAdd(id);
+        setLevel(i, getCommittedAt(i, cycle));
+        drains[i] = drain;
+        since[i] = cycle;
+    }
+
+    void remove(int id) {
+        int i = find(id);
+        if (i == -1) {
+            return;
+        }
+        if (dirty[i]) {
+            dirtyCount--;
+        }
+        setPending(i, 0);
+        removed = true;
+        size--;
+        // Shift the following entries of the cluster back so that lookups don't stop at the hole.
+        int mask = keys.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!used[j]) {
+                break;
+            }
+            int k = home(keys[j]);
+            if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+                continue;
+            }
+            keys[i] = keys[j];
+            levels[i] = levels[j];
+            drains[i] = drains[j];
+            since[i] = since[j];
+            pending[i] = pending[j];
+            dirty[i] = dirty[j];
+            i = j;
+        }
+        used[i] = false;
+        pending[i] = 0;
+        dirty[i] = false;
+    }
+
+    void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+        dirtyCount = 0;
+        pendingCount = 0;
+        removed = false;
+    }
+
+    // Slots for iteration: a slot is only valid if isUsed() is true.
+    int getCapacity() {
+        return keys.length;
+    }
+
+    boolean isUsed(int slot) {
+        return used[slot];
+    }
+
+    int getId(int slot) {
+        return keys[slot];
+    }
+
+    int getLevelInSlot(int slot, long cycle) {
+        return getLevelAt(slot, cycle);
+    }
+
+    int getCommittedInSlot(int slot, long cycle) {
+        return getCommittedAt(slot, cycle);
+    }
+
+    int getPendingInSlot(int slot) {
+        return pending[slot];
+    }
+
+    boolean hasPending() {
+        return pendingCount > 0;
+    }
+
+    /**
+     * True if an entry changed or was removed since clearChanges() or has pending energy.
+     */
+    boolean hasChanges() {
+        return dirtyCount > 0 || removed || pendingCount > 0;
+    }
+
+    void clearChanges() {
+        Arrays.fill(dirty, false);
+        dirtyCount = 0;
+        removed = false;
+    }
+}
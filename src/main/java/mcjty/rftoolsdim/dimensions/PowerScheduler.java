@@ -0,0 +1,110 @@
+package mcjty.rftoolsdim.dimensions;
+
+import mcjty.rftoolsdim.config.PowerConfiguration;
+
+import java.util.*;
+
+/**
+ * Decides when the power of a dimension that is not loaded has to be handled by
+ * DimensionTickEvent. Time is counted in power cycles (one every DimensionTickEvent.MAXTICKS
+ * ticks). Every dimension has one cycle at which it is due: the cycle at which its energy will
+ * cross the next warning level or zero, at most PowerConfiguration.powerSchedulerMaxCycles
+ * from now. In between the energy is drained lazily by DimensionStorage.
+ * Only used from the server thread.
+ */
+public class PowerScheduler {
+    private static PowerScheduler instance = null;
+
+    private long cycle = 0;
+
+    // The cycle at which every dimension is due and per cycle the dimensions that are due then.
+    // The queue can contain stale entries for dimensions that were rescheduled.
+    private final Map<Integer, Long> due = new HashMap<>();
+    private final TreeMap<Long, List<Integer>> queue = new TreeMap<>();
+
+    public static PowerScheduler getScheduler() {
+        if (instance == null) {
+            instance = new PowerScheduler();
+        }
+        return instance;
+    }
+
+    public static void clearInstance() {
+        instance = null;
+    }
+
+    /**
+     * Make sure the dimension is handled in the next cycle. Called when its energy is changed
+     * from outside the power handling.
+     */
+    public static void wakeUp(int id) {
+        if (instance != null) {
+            Long old = instance.due.get(id);
+            if (old == null || old > instance.cycle + 1) {
+                instance.schedule(id, instance.cycle + 1);
+            }
+        }
+    }
+
+    public long getCycle() {
+        return cycle;
+    }
+
+    public long nextCycle() {
+        return ++cycle;
+    }
+
+    public void schedule(int id, long dueCycle) {
+        due.put(id, dueCycle);
+        List<Integer> ids = queue.get(dueCycle);
+        if (ids == null) {
+            ids = new ArrayList<>();
+            queue.put(dueCycle, ids);
+        }
+        ids.add(id);
+    }
+
+    /**
+     * Stop scheduling a dimension that was deleted. Its stale queue entries are skipped by pollDue().
+     */
+    public static void forget(int id) {
+        if (instance != null) {
+            instance.due.remove(id);
+        }
+    }
+
+    /**
+     * Remove and return all dimensions that are due in this cycle (or before).
+     */
+    public List<Integer> pollDue() {
+        List<Integer> result = new ArrayList<>();
+        while (!queue.isEmpty() && queue.firstKey() <= cycle) {
+            Map.Entry<Long, List<Integer>> entry = queue.pollFirstEntry();
+            for (Integer id : entry.getValue()) {
+                if (entry.getKey().equals(due.get(id))) {
+                    due.remove(id);
+                    result.add(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The number of cycles after which a dimension with this energy and drain (RF per cycle)
+     * crosses the next warning level or runs out of power.
+     */
+    public static long cyclesToNextThreshold(int power, int drain) {
+        int maxCycles = Math.max(1, PowerConfiguration.powerSchedulerMaxCycles);
+        if (drain <= 0 || power <= 0) {
+            return maxCycles;
+        }
+        long cycles = (power + drain - 1) / drain;
+        for (int threshold : new int[] { PowerConfiguration.DIMPOWER_WARN1, PowerConfiguration.DIMPOWER_WARN2, PowerConfiguration.DIMPOWER_WARN3 }) {
+            if (power >= threshold) {
+                cycles = Math.min(cycles, (power - threshold) / drain + 1);
+            }
+        }
+        return Math.max(1, Math.min(cycles, maxCycles));
+    }
+}
@@ -12,7 +12,6 @@ import mcjty.rftoolsdim.network.PacketRegisterDimensions;
 import mcjty.rftoolsdim.network.PacketSyncDimensionInfo;
 import mcjty.rftoolsdim.network.PacketSyncRules;
 import mcjty.rftoolsdim.network.RFToolsDimMessages;
-import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.entity.player.InventoryPlayer;
@@ -21,12 +20,11 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.BlockPos;
-import net.minecraft.util.ClassInheritanceMultiMap;
 import net.minecraft.util.MathHelper;
+import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldSavedData;
 import net.minecraft.world.WorldServer;
-import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.gen.ChunkProviderServer;
 import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.common.util.Constants;
@@ -43,11 +41,13 @@ public class RfToolsDimensionManager extends WorldSavedData {
 
     private final Set<Integer> reclaimedIds = new HashSet<Integer>();
 
-    public void syncFromServer(Map<Integer, DimensionDescriptor> dims, Map<Integer, DimensionInformation> dimInfo) {
+    // Server side: the revision of the dimension information that was last sent to the clients
+    // and per dimension the data that was sent (see syncDimInfoToClients()).
+    private int syncRevision = 0;
+    private final Map<Integer, byte[]> syncedDimensions = new HashMap<>();
+
+    public void syncFromServer(Map<Integer, DimensionDescriptor> dims, Map<Integer, DimensionInformation> dimInfo, Collection<Integer> removed) {
         Logging.log("RfToolsDimensionManager.syncFromServer");
-        if (dims.isEmpty() || dimInfo.isEmpty()) {
-            Logging.log("Dimension information from server is empty.");
-        }
 
         for (Map.Entry<Integer, DimensionDescriptor> entry : dims.entrySet()) {
             int id = entry.getKey();
@@ -64,6 +64,14 @@ public class RfToolsDimensionManager extends WorldSavedData {
             DimensionInformation info = entry.getValue();
             dimensionInformation.put(id, info);
         }
+
+        for (Integer id : removed) {
+            DimensionDescriptor descriptor = dimensions.remove(id);
+            if (descriptor != null) {
+                dimensionToID.remove(descriptor);
+            }
+            dimensionInformation.remove(id);
+        }
     }
 
     public RfToolsDimensionManager(String identifier) {
@@ -129,12 +137,25 @@ public class RfToolsDimensionManager extends WorldSavedData {
     /**
      * Freeze a dimension: avoid ticking all tile entities and remove all
      * active entities (they are still there but will not do anything).
-     * Entities that are within range of a player having a PFG will be kept
-     * active (but not tile entities).
+     * This is done per chunk (see ChunkFreezer). Chunks that are within range
+     * of a player having a PFG will be kept active.
      */
     public static void freezeDimension(World world) {
-        // First find all players that have a valid PFG.
-        List<BlockPos> pfgList = new ArrayList<>();
+        ChunkFreezer.freeze((WorldServer) world, getPhasedFieldChunks(world));
+    }
+
+    /**
+     * Throttle a dimension with low power: only one in 'slices' chunks ticks at a time and
+     * the ticking chunks change with 'time' (see ChunkFreezer.throttle()). Chunks that are
+     * within range of a player having a PFG will keep ticking.
+     */
+    public static void throttleDimension(World world, int slices, long time) {
+        ChunkFreezer.throttle((WorldServer) world, getPhasedFieldChunks(world), slices, time);
+    }
+
+    // All chunks in range of players that have a valid PFG.
+    private static Set<Long> getPhasedFieldChunks(World world) {
+        Set<Long> chunks = new HashSet<>();
         int radius = PowerConfiguration.phasedFieldGeneratorRange;
         if (radius > 0) {
             for (Object ent : world.playerEntities) {
@@ -151,26 +172,14 @@ public class RfToolsDimensionManager extends WorldSavedData {
                     }
                 }
                 if (checkValidPhasedFieldGenerator(player, false, cost)) {
-                    pfgList.add(new BlockPos((int) player.posX, (int) player.posY, (int) player.posZ));
+                    getChunksInRange(new BlockPos((int) player.posX, (int) player.posY, (int) player.posZ), radius, chunks);
                 }
             }
         }
-
-        // If there are players with a valid PFG then we check if there are entities we want to keep.
-        List tokeep = new ArrayList();
-        tokeep.addAll(world.playerEntities);    // We want to keep all players for sure.
-        // Add all entities that are within range of a PFG.
-        for (BlockPos coordinate : pfgList) {
-            getEntitiesInSphere(world, coordinate, radius, tokeep);
-        }
-
-        world.loadedEntityList.clear();
-        world.loadedEntityList.addAll(tokeep);
-
-        world.loadedTileEntityList.clear();
+        return chunks;
     }
 
-    private static void getEntitiesInSphere(World world, BlockPos c, float radius, List tokeep) {
+    private static void getChunksInRange(BlockPos c, float radius, Set<Long> chunks) {
         int i = MathHelper.floor_double((c.getX() - radius) / 16.0D);
         int j = MathHelper.floor_double((c.getX() + 1 + radius) / 16.0D);
         int k = MathHelper.floor_double((c.getZ() - radius) / 16.0D);
@@ -178,31 +187,7 @@ public class RfToolsDimensionManager extends WorldSavedData {
 
         for (int i1 = i; i1 <= j; ++i1) {
             for (int j1 = k; j1 <= l; ++j1) {
-                if (world.getChunkProvider().chunkExists(i1, j1)) {
-                    Chunk chunk = world.getChunkFromChunkCoords(i1, j1);
-                    getEntitiesInSphere(chunk, c, radius, tokeep);
-                }
-            }
-        }
-    }
-
-    private static void getEntitiesInSphere(Chunk chunk, BlockPos c, float radius, List entities) {
-        float squaredRange = radius * radius;
-        int i = MathHelper.floor_double((c.getY() - radius) / 16.0D);
-        int j = MathHelper.floor_double((c.getY() + 1 + radius) / 16.0D);
-        i = MathHelper.clamp_int(i, 0, chunk.getEntityLists().length - 1);
-        j = MathHelper.clamp_int(j, 0, chunk.getEntityLists().length - 1);
-
-        for (int k = i; k <= j; ++k) {
-            ClassInheritanceMultiMap<Entity> entityList = chunk.getEntityLists()[k];
-            for (Entity entity : entityList) {
-                if (!(entity instanceof EntityPlayer)) {
-                    float sqdist = squaredDistance(c, new BlockPos((int) entity.posX, (int) entity.posY, (int) entity.posZ));
-                    if (sqdist < squaredRange) {
-                        entities.add(entity);
-                        break;
-                    }
-                }
+                chunks.add(ChunkCoordIntPair.chunkXZ2Int(i1, j1));
             }
         }
     }
@@ -214,20 +199,7 @@ public class RfToolsDimensionManager extends WorldSavedData {
 
 
     public static void unfreezeDimension(World world) {
-        WorldServer worldServer = (WorldServer) world;
-        for (Object chunk : worldServer.theChunkProviderServer.loadedChunks) {
-            Chunk c = (Chunk) chunk;
-            unfreezeChunk(c);
-        }
-    }
-
-    public static void unfreezeChunk(Chunk chunk) {
-//        chunk.setChunkLoaded(true);
-        chunk.isChunkLoaded = true;
-        chunk.getWorld().addTileEntities(chunk.getTileEntityMap().values());
-        for (ClassInheritanceMultiMap<Entity> entityList : chunk.getEntityLists()) {
-            chunk.getWorld().loadedEntityList.addAll(entityList);
-        }
+        ChunkFreezer.unfreeze((WorldServer) world);
     }
 
     public static boolean checkValidPhasedFieldGenerator(EntityPlayer player, boolean consume, int tickCost) {
@@ -265,11 +237,68 @@ public class RfToolsDimensionManager extends WorldSavedData {
         }
     }
 
+    /**
+     * Send the dimensions that were added, changed or removed since the last sync to all clients.
+     * Every such delta increases the sync revision. Clients that don't have the previous revision
+     * ask for a full sync.
+     */
     public void syncDimInfoToClients(World world) {
         if (!world.isRemote) {
+            List<byte[]> changed = new ArrayList<>();
+            List<Integer> removed = new ArrayList<>();
+            updateSyncedDimensions(changed, removed);
+            if (changed.isEmpty() && removed.isEmpty()) {
+                return;
+            }
             // Sync to clients.
-            Logging.log("Sync dimension info to clients!");
-            RFToolsDimMessages.INSTANCE.sendToAll(new PacketSyncDimensionInfo(dimensions, dimensionInformation));
+            Logging.log("Sync dimension info to clients! (" + changed.size() + " changed, " + removed.size() + " removed)");
+            int fromRevision = syncRevision;
+            syncRevision++;
+            RFToolsDimMessages.INSTANCE.sendToAll(new PacketSyncDimensionInfo(false, fromRevision, syncRevision, changed, removed));
+        }
+    }
+
+    /**
+     * Full sync for one client. 'hashes' are the content hashes of the dimensions that the
+     * client already has (see PacketSyncDimensionInfo.hashDimension()). Only the dimensions
+     * that the client doesn't have or that differ are sent.
+     */
+    public void syncDimInfoToClient(EntityPlayerMP player, Map<Integer, Long> hashes) {
+        // First make sure the other clients are up to date so the revision is correct.
+        syncDimInfoToClients(player.worldObj);
+        List<byte[]> changed = new ArrayList<>();
+        for (Map.Entry<Integer, byte[]> me : syncedDimensions.entrySet()) {
+            Long hash = hashes.get(me.getKey());
+            if (hash == null || hash != PacketSyncDimensionInfo.hashDimension(me.getValue())) {
+                changed.add(me.getValue());
+            }
+        }
+        List<Integer> removed = new ArrayList<>();
+        for (Integer id : hashes.keySet()) {
+            if (!syncedDimensions.containsKey(id)) {
+                removed.add(id);
+            }
+        }
+        Logging.log("Sync dimension info to " + player.getName() + " (" + changed.size() + " of " + syncedDimensions.size() + " dimensions not cached)");
+        RFToolsDimMessages.INSTANCE.sendTo(new PacketSyncDimensionInfo(true, syncRevision, syncRevision, changed, removed), player);
+    }
+
+    // Encode all dimensions and compare with what was synced before.
+    private void updateSyncedDimensions(List<byte[]> changed, List<Integer> removed) {
+        for (Map.Entry<Integer, DimensionDescriptor> me : dimensions.entrySet()) {
+            int id = me.getKey();
+            byte[] data = PacketSyncDimensionInfo.encodeDimension(id, me.getValue(), dimensionInformation.get(id));
+            if (!Arrays.equals(data, syncedDimensions.get(id))) {
+                syncedDimensions.put(id, data);
+                changed.add(data);
+            }
+        }
+        for (Iterator<Integer> iterator = syncedDimensions.keySet().iterator() ; iterator.hasNext() ; ) {
+            Integer id = iterator.next();
+            if (!dimensions.containsKey(id)) {
+                iterator.remove();
+                removed.add(id);
+            }
         }
     }
 
@@ -341,6 +370,7 @@ public class RfToolsDimensionManager extends WorldSavedData {
         dimensions.remove(id);
         dimensionToID.remove(descriptor);
         dimensionInformation.remove(id);
+        invalidateSpawnPolicy(id);
         if (DimensionManager.isDimensionRegistered(id)) {
             DimensionManager.unregisterDimension(id);
         }
@@ -357,11 +387,20 @@ public class RfToolsDimensionManager extends WorldSavedData {
         dimensions.put(id, descriptor);
         dimensionToID.put(descriptor, id);
         dimensionInformation.put(id, dimensionInfo);
+        invalidateSpawnPolicy(id);
 
         save(world);
         touchSpawnChunk(id);
     }
 
+    // Loaded dimensions keep their compiled spawn rules until the dimension information changes.
+    private static void invalidateSpawnPolicy(int id) {
+        World world = DimensionManager.getWorld(id);
+        if (world != null && world.provider instanceof GenericWorldProvider) {
+            ((GenericWorldProvider) world.provider).invalidateSpawnPolicy();
+        }
+    }
+
     public int countOwnedDimensions(UUID player) {
         int cnt = 0;
         for (Map.Entry<Integer, DimensionInformation> entry : dimensionInformation.entrySet()) {
@@ -400,6 +439,7 @@ public class RfToolsDimensionManager extends WorldSavedData {
         try {
             DimensionInformation dimensionInfo = new DimensionInformation(name, descriptor, world, playerName, player);
             dimensionInformation.put(id, dimensionInfo);
+            invalidateSpawnPolicy(id);
         } catch (Exception e) {
             Logging.logError("Something went wrong during creation of the dimension!");
             e.printStackTrace();
@@ -0,0 +1,174 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import mcjty.lib.varia.Logging;
+import mcjty.rftoolsdim.config.WorldgenConfiguration;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.gen.ChunkProviderServer;
+
+import java.util.*;
+
+/**
+ * Detects cascading chunk generation by the RFTools decorations (GenericWorldGenerator). While
+ * a feature is being generated for a chunk every new chunk that is generated in the same
+ * dimension is counted for that feature: such a chunk was forced to generate (and possibly
+ * populate) because the feature reads or writes outside of the populated area.
+ *
+ * If WorldgenConfiguration.deferCascadingWrites is set work that would go to a chunk that is not
+ * generated yet can be queued instead. It runs when that chunk is populated. The queue is not
+ * saved so queued work is lost if the server stops before that happens.
+ * Only used from the server thread.
+ */
+public class CascadeDetector {
+
+    private static class Feature {
+        private final int dimension;
+        private final int chunkX;
+        private final int chunkZ;
+        private String name = "none";
+
+        private Feature(int dimension, int chunkX, int chunkZ) {
+            this.dimension = dimension;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+    // Population can nest if a cascading chunk is populated while a feature is still running.
+    private static final Deque<Feature> features = new ArrayDeque<>();
+
+    // Number of cascading chunks per dimension and feature.
+    private static final Map<Integer, Map<String, Integer>> cascades = new HashMap<>();
+
+    // Work waiting for a chunk to be generated per dimension and chunk.
+    private static final Map<Integer, Map<Long, List<Runnable>>> deferred = new HashMap<>();
+
+    /**
+     * Start the population of a chunk. Must be followed by end().
+     */
+    public static void begin(World world, int chunkX, int chunkZ) {
+        features.push(new Feature(world.provider.getDimensionId(), chunkX, chunkZ));
+    }
+
+    /**
+     * Set the feature that is generated now for the chunk given to begin().
+     */
+    public static void setFeature(String name) {
+        Feature feature = features.peek();
+        if (feature != null) {
+            feature.name = name;
+        }
+    }
+
+    public static void end() {
+        features.pop();
+    }
+
+    /**
+     * Called by the chunk provider every time a new chunk is generated.
+     */
+    public static void onChunkGenerated(World world, int chunkX, int chunkZ) {
+        Feature feature = features.peek();
+        if (feature == null || feature.dimension != world.provider.getDimensionId()) {
+            return;
+        }
+        Map<String, Integer> counts = cascades.get(feature.dimension);
+        if (counts == null) {
+            counts = new TreeMap<>();
+            cascades.put(feature.dimension, counts);
+        }
+        Integer count = counts.get(feature.name);
+        if (count == null) {
+            count = 0;
+            Logging.log("Feature '" + feature.name + "' in chunk " + feature.chunkX + "," + feature.chunkZ + " of dimension "
+                    + feature.dimension + " caused generation of chunk " + chunkX + "," + chunkZ + " (further cascades of this feature are only counted)");
+        }
+        counts.put(feature.name, count + 1);
+    }
+
+    public static Map<String, Integer> getCascades(int dimension) {
+        Map<String, Integer> counts = cascades.get(dimension);
+        return counts == null ? Collections.<String, Integer>emptyMap() : counts;
+    }
+
+    public static void resetCascades(int dimension) {
+        cascades.remove(dimension);
+    }
+
+    /**
+     * True if the chunk is loaded or was generated and saved before. Accessing a chunk for which
+     * this is false will generate it.
+     */
+    public static boolean isChunkGenerated(World world, int chunkX, int chunkZ) {
+        if (!(world instanceof WorldServer)) {
+            return true;
+        }
+        ChunkProviderServer providerServer = ((WorldServer) world).theChunkProviderServer;
+        if (providerServer.chunkExists(chunkX, chunkZ)) {
+            return true;
+        }
+        return !(providerServer.chunkLoader instanceof AnvilChunkLoader) || ((AnvilChunkLoader) providerServer.chunkLoader).chunkExists(world, chunkX, chunkZ);
+    }
+
+    /**
+     * True if work for this chunk should be deferred with defer() instead of forcing the chunk
+     * to generate.
+     */
+    public static boolean shouldDefer(World world, int chunkX, int chunkZ) {
+        return WorldgenConfiguration.deferCascadingWrites && !isChunkGenerated(world, chunkX, chunkZ);
+    }
+
+    public static void defer(World world, int chunkX, int chunkZ, Runnable work) {
+        int dimension = world.provider.getDimensionId();
+        Map<Long, List<Runnable>> chunks = deferred.get(dimension);
+        if (chunks == null) {
+            chunks = new HashMap<>();
+            deferred.put(dimension, chunks);
+        }
+        long key = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+        List<Runnable> list = chunks.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            chunks.put(key, list);
+        }
+        list.add(work);
+    }
+
+    /**
+     * Run the work that was deferred until this chunk is populated.
+     */
+    public static void runDeferred(World world, int chunkX, int chunkZ) {
+        Map<Long, List<Runnable>> chunks = deferred.get(world.provider.getDimensionId());
+        if (chunks == null) {
+            return;
+        }
+        List<Runnable> work = chunks.remove(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+        if (chunks.isEmpty()) {
+            deferred.remove(world.provider.getDimensionId());
+        }
+        if (work != null) {
+            for (Runnable runnable : work) {
+                runnable.run();
+            }
+        }
+    }
+
+    public static int getDeferredCount(int dimension) {
+        Map<Long, List<Runnable>> chunks = deferred.get(dimension);
+        int count = 0;
+        if (chunks != null) {
+            for (List<Runnable> work : chunks.values()) {
+                count += work.size();
+            }
+        }
+        return count;
+    }
+
+    public static void clear() {
+        features.clear();
+        cascades.clear();
+        deferred.clear();
+    }
+}
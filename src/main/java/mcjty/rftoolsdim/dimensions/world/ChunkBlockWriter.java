@@ -0,0 +1,183 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes blocks for a feature (a dungeon, a platform, ice and snow, ...) directly in the block
+ * storage of the chunks. This is the same as world.setBlockState() with flag 2 except that the
+ * lighting update and the update for the client are done only once in flush() instead of for
+ * every block. The blocks themselves are written immediately so reading back through the world
+ * gives the new blocks.
+ *
+ * Like vanilla only the columns whose height map can change are relit and only the blocks whose
+ * light opacity or light value changed get a light check. Chunks that are not lit yet only get
+ * their height map fixed since they will get a full light check later.
+ *
+ * No onBlockAdded() or breakBlock() is called so this should only be used for simple blocks.
+ * Blocks with a tile entity (new or old) are always set through the world. Blocks in chunks
+ * that are not generated yet are deferred if CascadeDetector says so.
+ */
+public class ChunkBlockWriter {
+    private final World world;
+
+    private Chunk lastChunk = null;
+    private final Map<Chunk, ChunkChanges> changedChunks = new IdentityHashMap<>();
+    private final List<BlockPos> changedPositions = new ArrayList<>();
+    private final List<BlockPos> lightChanges = new ArrayList<>();
+
+    private static class ChunkChanges {
+        // Per column (z << 4 | x) the height to relight from (as in Chunk.relightBlock()) or 0.
+        private final int[] relightHeight = new int[256];
+        private boolean hasRelight = false;
+        private boolean newStorage = false;
+    }
+
+    public ChunkBlockWriter(World world) {
+        this.world = world;
+    }
+
+    private Chunk getChunk(int x, int z) {
+        int cx = x >> 4;
+        int cz = z >> 4;
+        if (lastChunk == null || lastChunk.xPosition != cx || lastChunk.zPosition != cz) {
+            lastChunk = world.getChunkFromChunkCoords(cx, cz);
+        }
+        return lastChunk;
+    }
+
+    public IBlockState getBlockState(int x, int y, int z) {
+        if (y < 0 || y >= 256) {
+            return Blocks.air.getDefaultState();
+        }
+        ExtendedBlockStorage storage = getChunk(x, z).getBlockStorageArray()[y >> 4];
+        if (storage == null) {
+            return Blocks.air.getDefaultState();
+        }
+        return storage.get(x & 15, y & 15, z & 15);
+    }
+
+    public boolean isAirBlock(int x, int y, int z) {
+        return getBlockState(x, y, z).getBlock().getMaterial() == Material.air;
+    }
+
+    // Return true if this block is solid (same as WorldGenerationTools.isSolid()).
+    public boolean isSolid(int x, int y, int z) {
+        return !isAirBlock(x, y, z) && getBlockState(x, y, z).getBlock().getMaterial().blocksMovement();
+    }
+
+    public void setBlockToAir(int x, int y, int z) {
+        setBlockState(x, y, z, Blocks.air.getDefaultState());
+    }
+
+    public void setBlockState(int x, int y, int z, IBlockState state) {
+        if (y < 0 || y >= 256) {
+            return;
+        }
+        if (CascadeDetector.shouldDefer(world, x >> 4, z >> 4)) {
+            // Don't force the chunk to generate just for this block.
+            BlockPos pos = new BlockPos(x, y, z);
+            CascadeDetector.defer(world, x >> 4, z >> 4, () -> world.setBlockState(pos, state, 2));
+            return;
+        }
+        Chunk chunk = getChunk(x, z);
+        ExtendedBlockStorage[] storageArray = chunk.getBlockStorageArray();
+        ExtendedBlockStorage storage = storageArray[y >> 4];
+        IBlockState old = storage == null ? Blocks.air.getDefaultState() : storage.get(x & 15, y & 15, z & 15);
+        if (old == state) {
+            return;
+        }
+        if (state.getBlock().hasTileEntity(state) || old.getBlock().hasTileEntity(old)) {
+            world.setBlockState(new BlockPos(x, y, z), state, 2);
+            return;
+        }
+        boolean newStorage = false;
+        if (storage == null) {
+            if (state.getBlock() == Blocks.air) {
+                return;
+            }
+            storage = new ExtendedBlockStorage(y >> 4 << 4, !world.provider.getHasNoSky());
+            storageArray[y >> 4] = storage;
+            newStorage = true;
+        }
+        storage.set(x & 15, y & 15, z & 15, state);
+
+        ChunkChanges changes = changedChunks.get(chunk);
+        if (changes == null) {
+            changes = new ChunkChanges();
+            changedChunks.put(chunk, changes);
+        }
+        changes.newStorage |= newStorage;
+
+        // Same conditions as Chunk.setBlockState() and World.setBlockState().
+        Block oldBlock = old.getBlock();
+        Block block = state.getBlock();
+        int opacity = block.getLightOpacity();
+        int column = (z & 15) << 4 | (x & 15);
+        if (y >= chunk.precipitationHeightMap[column] - 1) {
+            chunk.precipitationHeightMap[column] = -999;
+        }
+        int height = chunk.getHeightValue(x & 15, z & 15);
+        if ((opacity > 0 && y >= height) || (opacity == 0 && y == height - 1)) {
+            changes.relightHeight[column] = Math.max(changes.relightHeight[column], Math.max(height, y + 1));
+            changes.hasRelight = true;
+        }
+        BlockPos pos = new BlockPos(x, y, z);
+        if (opacity != oldBlock.getLightOpacity() || block.getLightValue() != oldBlock.getLightValue()) {
+            lightChanges.add(pos);
+        }
+        changedPositions.add(pos);
+    }
+
+    /**
+     * Fix the height map and lighting of the changed chunks and send the changed blocks to the clients.
+     */
+    public void flush() {
+        for (Map.Entry<Chunk, ChunkChanges> entry : changedChunks.entrySet()) {
+            Chunk chunk = entry.getKey();
+            ChunkChanges changes = entry.getValue();
+            if (!chunk.isLightPopulated()) {
+                // The chunk gets a full light check later so only the height map has to be right.
+                if (changes.hasRelight || changes.newStorage) {
+                    chunk.generateSkylightMap();
+                }
+            } else {
+                if (changes.hasRelight) {
+                    for (int column = 0; column < 256; column++) {
+                        if (changes.relightHeight[column] > 0) {
+                            chunk.relightBlock(column & 15, changes.relightHeight[column], column >> 4);
+                        }
+                    }
+                }
+                if (changes.newStorage) {
+                    // Vanilla does this too when a block is set in a new section.
+                    chunk.generateSkylightMap();
+                }
+            }
+            chunk.setChunkModified();
+        }
+        for (BlockPos pos : lightChanges) {
+            if (getChunk(pos.getX(), pos.getZ()).isLightPopulated()) {
+                world.checkLight(pos);
+            }
+        }
+        for (BlockPos pos : changedPositions) {
+            world.markBlockForUpdate(pos);
+        }
+        changedChunks.clear();
+        changedPositions.clear();
+        lightChanges.clear();
+        lastChunk = null;
+    }
+}
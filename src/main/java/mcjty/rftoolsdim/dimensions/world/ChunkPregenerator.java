@@ -0,0 +1,293 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import mcjty.lib.varia.Logging;
+import mcjty.rftoolsdim.config.PowerConfiguration;
+import mcjty.rftoolsdim.config.WorldgenConfiguration;
+import mcjty.rftoolsdim.dimensions.DimensionStorage;
+import mcjty.rftoolsdim.dimensions.RfToolsDimensionManager;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.ChatComponentText;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldSavedData;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.util.Constants;
+
+import java.util.*;
+
+/**
+ * Pre-generates the chunks of RFTools dimensions in a spiral around the spawn chunk. Jobs are
+ * persisted so they resume after a restart and only use a limited amount of time every tick.
+ */
+public class ChunkPregenerator extends WorldSavedData {
+    public static final String PREGEN_NAME = "RFToolsPregen";
+    private static ChunkPregenerator instance = null;
+
+    private final Map<Integer, PregenJob> jobs = new LinkedHashMap<>();
+
+    public static class PregenJob {
+        private final int dimension;
+        private final int radius;
+        private final String requester;
+        private int index = 0;
+        private int lastReported = 0;
+        private boolean paused = false;
+
+        public PregenJob(int dimension, int radius, String requester) {
+            this.dimension = dimension;
+            this.radius = radius;
+            this.requester = requester;
+        }
+
+        public int getDimension() {
+            return dimension;
+        }
+
+        public int getRadius() {
+            return radius;
+        }
+
+        public int getTotal() {
+            return (radius * 2 + 1) * (radius * 2 + 1);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getPercentage() {
+            return (int) (index * 100L / getTotal());
+        }
+
+        public boolean isPaused() {
+            return paused;
+        }
+    }
+
+    public static void clearInstance() {
+        if (instance != null) {
+            instance.jobs.clear();
+            instance = null;
+        }
+    }
+
+    public ChunkPregenerator(String identifier) {
+        super(identifier);
+    }
+
+    public void save(World world) {
+        world.getMapStorage().setData(PREGEN_NAME, this);
+        markDirty();
+    }
+
+    public static ChunkPregenerator getPregenerator(World world) {
+        if (instance != null) {
+            return instance;
+        }
+        instance = (ChunkPregenerator) world.getMapStorage().loadData(ChunkPregenerator.class, PREGEN_NAME);
+        if (instance == null) {
+            instance = new ChunkPregenerator(PREGEN_NAME);
+        }
+        return instance;
+    }
+
+    public void startJob(int dimension, int radius, String requester) {
+        jobs.put(dimension, new PregenJob(dimension, radius, requester));
+    }
+
+    public boolean stopJob(int dimension) {
+        PregenJob job = jobs.remove(dimension);
+        if (job != null) {
+            releaseCenter(job);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean hasJob(int dimension) {
+        return jobs.containsKey(dimension);
+    }
+
+    public Collection<PregenJob> getJobs() {
+        return jobs.values();
+    }
+
+    /**
+     * Called every server tick. Works on the oldest job until the time budget for this tick is used.
+     */
+    public static void tick() {
+        World overworld = DimensionManager.getWorld(0);
+        if (overworld == null) {
+            return;
+        }
+        ChunkPregenerator pregenerator = getPregenerator(overworld);
+        if (pregenerator.jobs.isEmpty()) {
+            return;
+        }
+        long deadline = System.nanoTime() + WorldgenConfiguration.pregenMillisPerTick * 1000000L;
+        for (PregenJob job : new ArrayList<>(pregenerator.jobs.values())) {
+            if (pregenerator.tickJob(overworld, job, deadline)) {
+                return;
+            }
+        }
+    }
+
+    // Returns true if this job used the budget for this tick.
+    private boolean tickJob(World overworld, PregenJob job, long deadline) {
+        if (RfToolsDimensionManager.getDimensionManager(overworld).getDimensionInformation(job.dimension) == null) {
+            jobs.remove(job.dimension);
+            save(overworld);
+            report(job, "Pregeneration of dimension " + job.dimension + " stopped: the dimension no longer exists");
+            return false;
+        }
+
+        // Don't wake up a dimension that is frozen because it has no power.
+        boolean unpowered = PowerConfiguration.freezeUnpowered && DimensionStorage.getDimensionStorage(overworld).getEnergyLevel(job.dimension) <= 0;
+        if (unpowered != job.paused) {
+            job.paused = unpowered;
+            report(job, "Pregeneration of dimension " + job.dimension + (unpowered ? " paused: the dimension has no power" : " resumed"));
+        }
+        if (unpowered) {
+            return false;
+        }
+
+        WorldServer world = MinecraftServer.getServer().worldServerForDimension(job.dimension);
+        ChunkProviderServer providerServer = world.theChunkProviderServer;
+        // Keep the spawn chunk loaded while we are busy so the dimension isn't unloaded and loaded again every tick.
+        providerServer.loadChunk(0, 0);
+        Set<Long> loaded = new HashSet<>();
+        int total = job.getTotal();
+        boolean failed = false;
+        int chunkX = 0;
+        int chunkZ = 0;
+        try {
+            do {
+                int[] pos = getSpiralPosition(job.index);
+                chunkX = pos[0];
+                chunkZ = pos[1];
+                generateChunk(providerServer, chunkX, chunkZ, loaded);
+                job.index++;
+            } while (job.index < total && System.nanoTime() < deadline);
+        } catch (Exception e) {
+            Logging.logError("Something went wrong pregenerating chunk " + chunkX + "," + chunkZ + " of dimension " + job.dimension + ": " + e);
+            failed = true;
+        }
+
+        long center = ChunkCoordIntPair.chunkXZ2Int(0, 0);
+        for (Long key : loaded) {
+            if (key != center) {
+                providerServer.dropChunk((int) (long) key, (int) (key >> 32));
+            }
+        }
+
+        if (failed) {
+            jobs.remove(job.dimension);
+            releaseCenter(job);
+            report(job, "Pregeneration of dimension " + job.dimension + " stopped because of an error at chunk " + job.index);
+        } else if (job.index >= total) {
+            jobs.remove(job.dimension);
+            releaseCenter(job);
+            report(job, "Pregeneration of dimension " + job.dimension + " is done (" + total + " chunks)");
+        } else if (job.getPercentage() / 10 != job.lastReported / 10) {
+            job.lastReported = job.getPercentage();
+            report(job, "Pregeneration of dimension " + job.dimension + ": " + job.lastReported + "% (" + job.index + "/" + total + ")");
+        }
+        save(overworld);
+        return true;
+    }
+
+    /**
+     * Make sure the chunk and the neighbours that are needed to populate it are loaded and
+     * then populate it. Chunks that were loaded here are added to 'loaded'.
+     */
+    private static void generateChunk(ChunkProviderServer providerServer, int chunkX, int chunkZ, Set<Long> loaded) {
+        for (int dx = 0 ; dx <= 1 ; dx++) {
+            for (int dz = 0 ; dz <= 1 ; dz++) {
+                if (!providerServer.chunkExists(chunkX + dx, chunkZ + dz)) {
+                    providerServer.loadChunk(chunkX + dx, chunkZ + dz);
+                    loaded.add(ChunkCoordIntPair.chunkXZ2Int(chunkX + dx, chunkZ + dz));
+                }
+            }
+        }
+        providerServer.populate(providerServer, chunkX, chunkZ);
+    }
+
+    private static void releaseCenter(PregenJob job) {
+        WorldServer world = DimensionManager.getWorld(job.dimension);
+        if (world != null && world.playerEntities.isEmpty()) {
+            world.theChunkProviderServer.dropChunk(0, 0);
+        }
+    }
+
+    private static void report(PregenJob job, String message) {
+        Logging.log(message);
+        if (job.requester != null) {
+            EntityPlayerMP player = MinecraftServer.getServer().getConfigurationManager().getPlayerByUsername(job.requester);
+            if (player != null) {
+                player.addChatMessage(new ChatComponentText(message));
+            }
+        }
+    }
+
+    /**
+     * Chunk offset of the given index in a square spiral around 0,0. Index 0 is the center and
+     * every ring of radius r ends at index (2r+1)^2-1.
+     */
+    public static int[] getSpiralPosition(int index) {
+        if (index == 0) {
+            return new int[] { 0, 0 };
+        }
+        int k = (int) Math.ceil((Math.sqrt(index + 1) - 1) / 2);
+        int t = 2 * k + 1;
+        int m = t * t - 1;
+        t--;
+        if (index >= m - t) {
+            return new int[] { k - (m - index), -k };
+        }
+        m -= t;
+        if (index >= m - t) {
+            return new int[] { -k, -k + (m - index) };
+        }
+        m -= t;
+        if (index >= m - t) {
+            return new int[] { -k + (m - index), k };
+        }
+        return new int[] { k, k - (m - index - t) };
+    }
+
+    @Override
+    public void readFromNBT(NBTTagCompound tagCompound) {
+        jobs.clear();
+        NBTTagList lst = tagCompound.getTagList("jobs", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0 ; i < lst.tagCount() ; i++) {
+            NBTTagCompound tc = lst.getCompoundTagAt(i);
+            int id = tc.getInteger("id");
+            String requester = tc.hasKey("requester") ? tc.getString("requester") : null;
+            PregenJob job = new PregenJob(id, tc.getInteger("radius"), requester);
+            job.index = tc.getInteger("index");
+            job.lastReported = job.getPercentage();
+            jobs.put(id, job);
+        }
+    }
+
+    @Override
+    public void writeToNBT(NBTTagCompound tagCompound) {
+        NBTTagList lst = new NBTTagList();
+        for (PregenJob job : jobs.values()) {
+            NBTTagCompound tc = new NBTTagCompound();
+            tc.setInteger("id", job.dimension);
+            tc.setInteger("radius", job.radius);
+            tc.setInteger("index", job.index);
+            if (job.requester != null) {
+                tc.setString("requester", job.requester);
+            }
+            lst.appendTag(tc);
+        }
+        tagCompound.setTag("jobs", lst);
+    }
+}
@@ -0,0 +1,311 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import mcjty.lib.varia.Logging;
+import mcjty.rftoolsdim.config.WorldgenConfiguration;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.gen.ChunkProviderServer;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the first part of the primer stage of a GenericChunkProvider (the terrain and the RFTools
+ * carvers, see GenericChunkProvider.getOffThreadStages()) on a small bounded pool of worker
+ * threads. The server thread requests primers for chunks it expects to need soon and picks them
+ * up again in provideChunk where it runs the rest of the stages. Anything that touches the world
+ * or posts Forge events (biome layers, the Forge terrain events, the biome surface of vanilla
+ * biomes, vanilla carvers, structures, the Chunk itself) stays on the server thread.
+ *
+ * Only the chunks that came in range since the last scan of a player are checked so a player
+ * that doesn't move costs nothing. All requests are cancelled when the world unloads.
+ */
+public class ChunkPrimerPipeline {
+
+    // Requests that are not picked up within this many ticks are dropped again.
+    private static final int EXPIRE_TICKS = 600;
+
+    private static ThreadPoolExecutor executor = null;
+
+    private final GenericChunkProvider provider;
+    private final Map<Long, PendingPrimer> pending = new HashMap<>();
+    private long ticks = 0;
+
+    // Per player the center chunk and radius of the last complete scan.
+    private Map<EntityPlayer, ScanArea> scanned = new IdentityHashMap<>();
+    private int budget = 0;
+
+    private static class ScanArea {
+        private final int cx;
+        private final int cz;
+        private final int radius;
+
+        private ScanArea(int cx, int cz, int radius) {
+            this.cx = cx;
+            this.cz = cz;
+            this.radius = radius;
+        }
+    }
+
+    private static class PendingPrimer {
+        private final GenerationContext context;
+        private final FutureTask<GenerationContext> task;
+        private final long requestTick;
+
+        private PendingPrimer(GenerationContext context, FutureTask<GenerationContext> task, long requestTick) {
+            this.context = context;
+            this.task = task;
+            this.requestTick = requestTick;
+        }
+
+        // Drop this request. The context only goes back to the pool if no worker is using it.
+        // A cancelled task forgets its callable (and so the provider) but stays in the queue of
+        // the executor until purge() is called.
+        private void discard() {
+            if (task.cancel(false) || task.isDone()) {
+                context.release();
+            }
+        }
+    }
+
+    public ChunkPrimerPipeline(GenericChunkProvider provider) {
+        this.provider = provider;
+    }
+
+    public static boolean isEnabled() {
+        return WorldgenConfiguration.primerThreads > 0;
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            int threads = WorldgenConfiguration.primerThreads;
+            AtomicInteger counter = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "RFTools Primer #" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private static synchronized void purge() {
+        if (executor != null) {
+            executor.purge();
+        }
+    }
+
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Schedule the primer stage for a chunk. Must be called from the server thread since the
+     * biomes are sampled here. Returns false if the chunk could not be scheduled.
+     */
+    public boolean request(int chunkX, int chunkZ) {
+        if (!isEnabled() || provider.getOffThreadStages() == 0) {
+            return false;
+        }
+        long key = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+        if (pending.containsKey(key)) {
+            return true;
+        }
+        if (pending.size() >= WorldgenConfiguration.primerMaxPending) {
+            return false;
+        }
+
+        GenerationContext context = GenerationContext.borrow();
+        provider.sampleBiomes(context, chunkX, chunkZ);
+        FutureTask<GenerationContext> task = new FutureTask<>(() -> {
+            provider.generatePrimer(chunkX, chunkZ, context, 0, provider.getOffThreadStages());
+            return context;
+        });
+        try {
+            getExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            context.release();
+            return false;
+        }
+        pending.put(key, new PendingPrimer(context, task, ticks));
+        return true;
+    }
+
+    /**
+     * Fetch the primed context for a chunk if it was requested before. If the worker did not start on it
+     * yet the request is cancelled and null is returned so that the caller generates it directly.
+     * The caller has to release the returned context.
+     */
+    public GenerationContext take(int chunkX, int chunkZ) {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        PendingPrimer p = pending.remove(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+        if (p == null) {
+            return null;
+        }
+        if (p.task.cancel(false)) {
+            p.context.release();
+            return null;
+        }
+        try {
+            return p.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            Logging.logError("Primer generation failed for chunk " + chunkX + "," + chunkZ + ": " + e.getMessage());
+            p.context.release();
+            return null;
+        }
+    }
+
+    /**
+     * Called every server tick for the world that owns this provider. Drops stale requests and
+     * schedules chunks ahead of moving players that are neither loaded nor saved yet.
+     */
+    public void tick(WorldServer world) {
+        ticks++;
+        if (!isEnabled()) {
+            if (!pending.isEmpty()) {
+                cancelAll();
+            }
+            return;
+        }
+
+        boolean expired = false;
+        Iterator<PendingPrimer> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            PendingPrimer p = iterator.next();
+            if (ticks - p.requestTick > EXPIRE_TICKS) {
+                p.discard();
+                iterator.remove();
+                expired = true;
+            }
+        }
+        if (expired) {
+            purge();
+        }
+
+        if (ticks % 5 != 0) {
+            return;
+        }
+        if (world.playerEntities.isEmpty()) {
+            scanned.clear();
+            return;
+        }
+
+        ChunkProviderServer providerServer = world.theChunkProviderServer;
+        AnvilChunkLoader loader = providerServer.chunkLoader instanceof AnvilChunkLoader ? (AnvilChunkLoader) providerServer.chunkLoader : null;
+        int radius = MinecraftServer.getServer().getConfigurationManager().getViewDistance();
+        if (loader == null) {
+            return;
+        }
+        budget = WorldgenConfiguration.primerRequestsPerTick;
+
+        // Players that left the world are forgotten here.
+        Map<EntityPlayer, ScanArea> oldScanned = scanned;
+        scanned = new IdentityHashMap<>();
+        boolean full = false;
+        for (Object o : world.playerEntities) {
+            EntityPlayer player = (EntityPlayer) o;
+            ScanArea old = oldScanned.get(player);
+            if (full) {
+                // Out of budget: scan this player again next time.
+                if (old != null) {
+                    scanned.put(player, old);
+                }
+                continue;
+            }
+            int lookahead = WorldgenConfiguration.primerLookaheadTicks;
+            int cx = MathHelper.floor_double((player.posX + player.motionX * lookahead) / 16.0);
+            int cz = MathHelper.floor_double((player.posZ + player.motionZ * lookahead) / 16.0);
+            if (old != null && old.radius != radius) {
+                old = null;
+            }
+            if (old != null && old.cx == cx && old.cz == cz) {
+                scanned.put(player, old);
+                continue;
+            }
+            if (scan(world, providerServer, loader, cx, cz, radius, old)) {
+                scanned.put(player, new ScanArea(cx, cz, radius));
+            } else {
+                full = true;
+                if (old != null) {
+                    scanned.put(player, old);
+                }
+            }
+        }
+    }
+
+    // Request the chunks around the center that are not in the old area. Returns false if the
+    // budget ran out before all of them were checked.
+    private boolean scan(WorldServer world, ChunkProviderServer providerServer, AnvilChunkLoader loader,
+                         int cx, int cz, int radius, ScanArea old) {
+        for (int x = cx - radius ; x <= cx + radius ; x++) {
+            if (old == null || Math.abs(x - old.cx) > old.radius) {
+                if (!scan(world, providerServer, loader, x, cz - radius, cz + radius)) {
+                    return false;
+                }
+            } else {
+                // Only the parts of this column below and above the old area.
+                if (!scan(world, providerServer, loader, x, cz - radius, Math.min(cz + radius, old.cz - old.radius - 1))) {
+                    return false;
+                }
+                if (!scan(world, providerServer, loader, x, Math.max(cz - radius, old.cz + old.radius + 1), cz + radius)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean scan(WorldServer world, ChunkProviderServer providerServer, AnvilChunkLoader loader, int x, int z1, int z2) {
+        for (int z = z1 ; z <= z2 ; z++) {
+            if (budget <= 0) {
+                return false;
+            }
+            if (providerServer.chunkExists(x, z) || pending.containsKey(ChunkCoordIntPair.chunkXZ2Int(x, z))) {
+                continue;
+            }
+            if (loader.chunkExists(world, x, z)) {
+                continue;
+            }
+            if (!request(x, z)) {
+                return false;
+            }
+            budget--;
+        }
+        return true;
+    }
+
+    /**
+     * Drop all requests (for example because the world unloads). Tasks that are already running
+     * finish their chunk and are then dropped too.
+     */
+    public void cancelAll() {
+        for (PendingPrimer p : pending.values()) {
+            p.discard();
+        }
+        pending.clear();
+        scanned.clear();
+        purge();
+    }
+}
@@ -0,0 +1,152 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLiving;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.IWorldAccess;
+import net.minecraft.world.World;
+
+import java.util.*;
+
+/**
+ * Keeps the number of loaded entities of a few classes in a world up to date so that they
+ * don't have to be counted with World.countEntities() (which goes over all loaded entities)
+ * for every spawn query. Registered as world access so it sees every entity that is added
+ * to or removed from the loaded entity list of the world.
+ *
+ * Like World.countEntities() subclasses are counted and living entities that don't despawn
+ * are not. The latter is checked when the entity is added and, since a mob can become persistent
+ * later (a name tag, picking up an item, ...), again for the counted entities once per tick.
+ * Entities in chunks that are frozen by ChunkFreezer are counted on purpose: they are still in
+ * the world and tick again as soon as their chunk thaws.
+ * Only used from the server thread.
+ */
+public class EntityClassCounter implements IWorldAccess {
+    private static final int[] NONE = new int[0];
+
+    private final World world;
+    private final Class<?>[] classes;
+    private final int[] counts;
+    private long pruneTime = -1;
+
+    // For every entity class that was seen the indices of the counted classes it belongs to.
+    private final Map<Class<?>, int[]> indicesPerClass = new HashMap<>();
+    private final Set<Entity> counted = Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+
+    public EntityClassCounter(World world, List<Class<?>> classes) {
+        this.world = world;
+        this.classes = classes.toArray(new Class<?>[classes.size()]);
+        this.counts = new int[this.classes.length];
+    }
+
+    public int getCount(int index) {
+        long time = world.getTotalWorldTime();
+        if (time != pruneTime) {
+            pruneTime = time;
+            prunePersistent();
+        }
+        return counts[index];
+    }
+
+    // Stop counting the entities that became persistent since they were added.
+    private void prunePersistent() {
+        for (Iterator<Entity> iterator = counted.iterator() ; iterator.hasNext() ; ) {
+            Entity entity = iterator.next();
+            if (entity instanceof EntityLiving && ((EntityLiving) entity).isNoDespawnRequired()) {
+                iterator.remove();
+                for (int index : getIndices(entity.getClass())) {
+                    counts[index]--;
+                }
+            }
+        }
+    }
+
+    private int[] getIndices(Class<?> entityClass) {
+        int[] indices = indicesPerClass.get(entityClass);
+        if (indices == null) {
+            indices = findIndices(classes, entityClass);
+            indicesPerClass.put(entityClass, indices);
+        }
+        return indices;
+    }
+
+    /**
+     * The indices of the classes that the entity class is a subclass of.
+     */
+    public static int[] findIndices(Class<?>[] classes, Class<?> entityClass) {
+        int cnt = 0;
+        int[] found = new int[classes.length];
+        for (int i = 0 ; i < classes.length ; i++) {
+            if (classes[i].isAssignableFrom(entityClass)) {
+                found[cnt++] = i;
+            }
+        }
+        return cnt == 0 ? NONE : Arrays.copyOf(found, cnt);
+    }
+
+    @Override
+    public void onEntityAdded(Entity entity) {
+        int[] indices = getIndices(entity.getClass());
+        if (indices.length == 0) {
+            return;
+        }
+        if (entity instanceof EntityLiving && ((EntityLiving) entity).isNoDespawnRequired()) {
+            return;
+        }
+        if (counted.add(entity)) {
+            for (int index : indices) {
+                counts[index]++;
+            }
+        }
+    }
+
+    @Override
+    public void onEntityRemoved(Entity entity) {
+        if (counted.remove(entity)) {
+            for (int index : getIndices(entity.getClass())) {
+                counts[index]--;
+            }
+        }
+    }
+
+    @Override
+    public void markBlockForUpdate(BlockPos pos) {
+    }
+
+    @Override
+    public void notifyLightSet(BlockPos pos) {
+    }
+
+    @Override
+    public void markBlockRangeForRenderUpdate(int x1, int y1, int z1, int x2, int y2, int z2) {
+    }
+
+    @Override
+    public void playSound(String soundName, double x, double y, double z, float volume, float pitch) {
+    }
+
+    @Override
+    public void playSoundToNearExcept(EntityPlayer except, String soundName, double x, double y, double z, float volume, float pitch) {
+    }
+
+    @Override
+    public void spawnParticle(int particleID, boolean ignoreRange, double xCoord, double yCoord, double zCoord, double xOffset, double yOffset, double zOffset, int... parameters) {
+    }
+
+    @Override
+    public void playRecord(String recordName, BlockPos pos) {
+    }
+
+    @Override
+    public void broadcastSound(int soundID, BlockPos pos, int data) {
+    }
+
+    @Override
+    public void playAuxSFX(EntityPlayer player, int sfxType, BlockPos pos, int data) {
+    }
+
+    @Override
+    public void sendBlockBreakProgress(int breakerId, BlockPos pos, int progress) {
+    }
+}
@@ -0,0 +1,81 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.gen.layer.GenLayer;
+import net.minecraft.world.gen.layer.IntCache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the output of the biome layer of a dimension in tiles of 16x16 (at the 1:4 resolution
+ * of the layer, so 64x64 blocks). The 10x10 lattice for terrain blending, the voronoi zoom for
+ * the per block biomes and the structure checks (areBiomesViable) all query overlapping areas of
+ * the same layer for every chunk. With this layer in between the parent is only evaluated once per tile.
+ *
+ * This only works for layers where the value at a position doesn't depend on the requested area
+ * (GenLayerFiltered and the vanilla layers below it).
+ */
+public class GenLayerTileCache extends GenLayer {
+    private static final int TILE_SHIFT = 4;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int MAX_TILES = 256;
+
+    private final Map<Long, int[]> tiles = new LinkedHashMap<Long, int[]>(MAX_TILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+
+    public GenLayerTileCache(long seed, GenLayer parent) {
+        super(seed);
+        this.parent = parent;
+    }
+
+    @Override
+    public void initWorldGenSeed(long seed) {
+        super.initWorldGenSeed(seed);
+        synchronized (tiles) {
+            tiles.clear();
+        }
+    }
+
+    private int[] getTile(int tileX, int tileZ) {
+        long key = ChunkCoordIntPair.chunkXZ2Int(tileX, tileZ);
+        int[] tile = tiles.get(key);
+        if (tile == null) {
+            // The parent returns an array from the IntCache that will be reused so we need a copy.
+            int[] ints = parent.getInts(tileX << TILE_SHIFT, tileZ << TILE_SHIFT, TILE_SIZE, TILE_SIZE);
+            tile = new int[TILE_SIZE * TILE_SIZE];
+            System.arraycopy(ints, 0, tile, 0, TILE_SIZE * TILE_SIZE);
+            tiles.put(key, tile);
+        }
+        return tile;
+    }
+
+    @Override
+    public int[] getInts(int x, int z, int width, int length) {
+        int[] aint = IntCache.getIntCache(width * length);
+        synchronized (tiles) {
+            int minTileX = x >> TILE_SHIFT;
+            int maxTileX = (x + width - 1) >> TILE_SHIFT;
+            int minTileZ = z >> TILE_SHIFT;
+            int maxTileZ = (z + length - 1) >> TILE_SHIFT;
+            for (int tileZ = minTileZ ; tileZ <= maxTileZ ; tileZ++) {
+                int z1 = Math.max(z, tileZ << TILE_SHIFT);
+                int z2 = Math.min(z + length, (tileZ + 1) << TILE_SHIFT);
+                for (int tileX = minTileX ; tileX <= maxTileX ; tileX++) {
+                    int[] tile = getTile(tileX, tileZ);
+                    int x1 = Math.max(x, tileX << TILE_SHIFT);
+                    int x2 = Math.min(x + width, (tileX + 1) << TILE_SHIFT);
+                    for (int zz = z1 ; zz < z2 ; zz++) {
+                        System.arraycopy(tile, ((zz & (TILE_SIZE - 1)) << TILE_SHIFT) + (x1 & (TILE_SIZE - 1)),
+                                aint, (zz - z) * width + (x1 - x), x2 - x1);
+                    }
+                }
+            }
+        }
+        return aint;
+    }
+}
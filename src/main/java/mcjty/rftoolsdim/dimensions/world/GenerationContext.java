@@ -0,0 +1,106 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import net.minecraft.world.biome.BiomeGenBase;
+import net.minecraft.world.chunk.ChunkPrimer;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Everything that is needed while generating a single chunk: the primer, the biome arrays,
+ * scratch noise buffers and randoms. Contexts are borrowed from a small pool and released
+ * again after the chunk is made so that chunk generation doesn't allocate these every time.
+ */
+public class GenerationContext {
+    private static final int MAX_POOLED = 16;
+    private static final Deque<GenerationContext> pool = new ArrayDeque<>();
+
+    private final ChunkPrimer primer = new ChunkPrimer();
+    private BiomeGenBase[] noiseBiomes = null;
+    private BiomeGenBase[] blockBiomes = null;
+    private double[] noiseBuffer = new double[64];
+
+    // Seeded for every chunk. Used by the primer stage (biome surface).
+    private final Random random = new Random();
+    // Reseeded on demand for things that used to create a new Random.
+    private final Random scratchRandom = new Random();
+
+    private GenerationContext() {
+    }
+
+    public static GenerationContext borrow() {
+        synchronized (pool) {
+            GenerationContext context = pool.pollFirst();
+            if (context != null) {
+                return context;
+            }
+        }
+        return new GenerationContext();
+    }
+
+    /**
+     * Give this context back to the pool. The primer is cleared to air here so the context
+     * must not be used anymore after this call.
+     */
+    public void release() {
+        Arrays.fill(primer.data, (char) 0);
+        synchronized (pool) {
+            if (pool.size() < MAX_POOLED) {
+                pool.addFirst(this);
+            }
+        }
+    }
+
+    public static void clearPool() {
+        synchronized (pool) {
+            pool.clear();
+        }
+    }
+
+    public ChunkPrimer getPrimer() {
+        return primer;
+    }
+
+    // The 10x10 biome lattice used for blending the terrain noise.
+    public BiomeGenBase[] getNoiseBiomes() {
+        return noiseBiomes;
+    }
+
+    public void setNoiseBiomes(BiomeGenBase[] noiseBiomes) {
+        this.noiseBiomes = noiseBiomes;
+    }
+
+    // The 16x16 per block biomes.
+    public BiomeGenBase[] getBlockBiomes() {
+        return blockBiomes;
+    }
+
+    public void setBlockBiomes(BiomeGenBase[] blockBiomes) {
+        this.blockBiomes = blockBiomes;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Returns the scratch random reseeded with the given seed. This gives the same sequence
+     * as 'new Random(seed)'. Don't keep it around while something else can reseed it.
+     */
+    public Random getScratchRandom(long seed) {
+        scratchRandom.setSeed(seed);
+        return scratchRandom;
+    }
+
+    /**
+     * Returns a scratch buffer of at least the given size. The contents are undefined.
+     */
+    public double[] getNoiseBuffer(int size) {
+        if (noiseBuffer.length < size) {
+            noiseBuffer = new double[size];
+        }
+        return noiseBuffer;
+    }
+}
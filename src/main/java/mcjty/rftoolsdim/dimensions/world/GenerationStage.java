@@ -0,0 +1,121 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import net.minecraft.world.chunk.ChunkPrimer;
+
+/**
+ * One pass of chunk generation (terrain, a carver, a structure, ...). GenericChunkProvider
+ * compiles the passes that are active in a dimension into a list of these and every pass
+ * keeps a histogram of how long it takes.
+ *
+ * A pass that may run on a primer worker (see ChunkPrimerPipeline) is marked 'offThread'. Such a
+ * pass must not post Forge events, call into biome code or change the world. A pass that keeps state
+ * between chunks (noise buffers, caches) has a 'lock' (the object that has that state) and only
+ * runs for one chunk at a time. Passes that use the same object share the lock.
+ */
+public class GenerationStage {
+    // Bucket i counts the runs that took less than 2^i nanoseconds (and at least 2^(i-1)).
+    private static final int BUCKETS = 40;
+
+    public interface Generator {
+        void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context);
+    }
+
+    private final String name;
+    private final boolean offThread;
+    private final Object lock;
+    private final Generator generator;
+
+    private final long[] histogram = new long[BUCKETS];
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    // A pass that only runs on the server thread.
+    public GenerationStage(String name, Generator generator) {
+        this(name, false, null, generator);
+    }
+
+    public GenerationStage(String name, boolean offThread, Object lock, Generator generator) {
+        this.name = name;
+        this.offThread = offThread;
+        this.lock = lock;
+        this.generator = generator;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isOffThread() {
+        return offThread;
+    }
+
+    public void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
+        if (lock != null) {
+            synchronized (lock) {
+                run(chunkX, chunkZ, primer, context);
+            }
+        } else {
+            run(chunkX, chunkZ, primer, context);
+        }
+    }
+
+    private void run(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
+        long start = System.nanoTime();
+        generator.generate(chunkX, chunkZ, primer, context);
+        record(System.nanoTime() - start);
+    }
+
+    private synchronized void record(long nanos) {
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+        histogram[bucket]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    public synchronized void resetTimings() {
+        for (int i = 0 ; i < BUCKETS ; i++) {
+            histogram[i] = 0;
+        }
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getAverageNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns an upper bound (a power of two) for the given percentile (0-100) of the recorded timings.
+     */
+    public synchronized long getPercentileNanos(int percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long needed = (count * percentile + 99) / 100;
+        long seen = 0;
+        for (int i = 0 ; i < BUCKETS ; i++) {
+            seen += histogram[i];
+            if (seen >= needed) {
+                return 1L << i;
+            }
+        }
+        return maxNanos;
+    }
+}
@@ -2,6 +2,7 @@ package mcjty.rftoolsdim.dimensions.world;
 
 import mcjty.rftoolsdim.dimensions.DimensionInformation;
 import mcjty.rftoolsdim.dimensions.RfToolsDimensionManager;
+import mcjty.rftoolsdim.config.MobConfiguration;
 import mcjty.rftoolsdim.config.WorldgenConfiguration;
 import mcjty.rftoolsdim.dimensions.description.MobDescriptor;
 import mcjty.rftoolsdim.dimensions.types.FeatureType;
@@ -11,6 +12,7 @@ import mcjty.rftoolsdim.dimensions.world.mapgen.*;
 import mcjty.rftoolsdim.dimensions.world.terrain.*;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockFalling;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLiving;
 import net.minecraft.entity.EnumCreatureType;
@@ -22,6 +24,7 @@ import net.minecraft.util.IProgressUpdate;
 import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.SpawnerAnimals;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 import net.minecraft.world.WorldType;
 import net.minecraft.world.biome.BiomeGenBase;
 import net.minecraft.world.chunk.Chunk;
@@ -54,6 +57,8 @@ public class GenericChunkProvider implements IChunkProvider {
     public DimensionInformation dimensionInformation;
     private List<BiomeGenBase.SpawnListEntry> extraSpawns;
     private List<Integer> extraSpawnsMax;
+    private EntityClassCounter extraSpawnsCounter;
+    private LocalMobDensity localMobDensity = null;
 
     // @todo, examine and consider customizing
     private ChunkProviderSettings settings = new ChunkProviderSettings.Factory().func_177864_b();
@@ -93,8 +98,23 @@ public class GenericChunkProvider implements IChunkProvider {
     // Holds ravine generator
     private MapGenBase ravineGenerator = new MapGenRavine();
 
-    // The biomes that are used to generate the chunk
-    public BiomeGenBase[] biomesForGeneration;
+    // The per chunk state of the primer stage (primer, biomes and the random) lives in the
+    // GenerationContext so it doesn't interfere with populate(). Passes that keep state between
+    // chunks are locked per pass (see GenerationStage).
+    private final ChunkPrimerPipeline primerPipeline = new ChunkPrimerPipeline(this);
+
+    // The generation passes that are active in this dimension. These are compiled once from the
+    // dimension information. The first 'offThreadStages' primer stages can run on a worker thread,
+    // the other primer stages and the chunk stages always run on the server thread.
+    private final List<GenerationStage> primerStages = new ArrayList<>();
+    private int offThreadStages = 0;
+    private final Object surfaceLock = new Object();
+    private final List<GenerationStage> chunkStages = new ArrayList<>();
+    private final List<MapGenStructure> structures = new ArrayList<>();
+
+    // Spatial indices on the structures that are checked for every spawn attempt.
+    private StructureIndex fortressIndex = null;
+    private StructureIndex scatteredFeatureIndex = null;
 
     {
         caveGenerator = TerrainGen.getModdedMapGen(caveGenerator, CAVE);
@@ -197,6 +217,7 @@ public class GenericChunkProvider implements IChunkProvider {
         }
 
         terrainGenerator.setup(world, this);
+        compileStages();
 
         extraSpawns = new ArrayList<>();
         extraSpawnsMax = new ArrayList<>();
@@ -205,6 +226,22 @@ public class GenericChunkProvider implements IChunkProvider {
             extraSpawns.add(new BiomeGenBase.SpawnListEntry((Class<? extends EntityLiving>) entityClass, mob.getSpawnChance(), mob.getMinGroup(), mob.getMaxGroup()));
             extraSpawnsMax.add(mob.getMaxLoaded());
         }
+        if (!extraSpawns.isEmpty()) {
+            List<Class<?>> classes = new ArrayList<>();
+            for (BiomeGenBase.SpawnListEntry entry : extraSpawns) {
+                classes.add(entry.entityClass);
+            }
+            // The chunk provider is made before the world loads any entity so this sees all of them.
+            extraSpawnsCounter = new EntityClassCounter(world, classes);
+            world.addWorldAccess(extraSpawnsCounter);
+
+            if (MobConfiguration.localDensityRadius > 0 && world instanceof WorldServer) {
+                localMobDensity = new LocalMobDensity((WorldServer) world, MobConfiguration.localDensityRadius, classes, extraSpawnsMax);
+                if (!localMobDensity.hasHostiles()) {
+                    localMobDensity = null;
+                }
+            }
+        }
 
     }
 
@@ -267,81 +304,142 @@ public class GenericChunkProvider implements IChunkProvider {
 //        }
 //    }
 //
-    @Override
-    public Chunk provideChunk(BlockPos blockPosIn) {
-        return this.provideChunk(blockPosIn.getX() >> 4, blockPosIn.getZ() >> 4);
-    }
-
-    /**
-     * Will return back a chunk, if it doesn't exist and its not a MP client it will generates all the blocks for the
-     * specified chunk from the map seed and chunk seed
-     */
-    @Override
-    public Chunk provideChunk(int chunkX, int chunkZ) {
-        this.rand.setSeed(chunkX * 341873128712L + chunkZ * 132897987541L + 123456);
-
-        ChunkPrimer chunkprimer = new ChunkPrimer();
-//        this.setBlocksInChunk(chunkX, chunkZ, chunkprimer);
-        this.biomesForGeneration = this.worldObj.getWorldChunkManager().getBiomesForGeneration(this.biomesForGeneration, chunkX * 4 - 2, chunkZ * 4 - 2, 10, 10);
-
-        terrainGenerator.generate(chunkX, chunkZ, chunkprimer);
-        this.biomesForGeneration = this.worldObj.getWorldChunkManager().loadBlockGeneratorData(this.biomesForGeneration, chunkX * 16, chunkZ * 16, 16, 16);
-        terrainGenerator.replaceBlocksForBiome(chunkX, chunkZ, chunkprimer, this.biomesForGeneration);
-
+    private void compileStages() {
+        // The terrain generators keep separate noise buffers for the terrain and the surface pass so
+        // a worker doing the terrain of one chunk doesn't block the surface of another one.
+        primerStages.add(new GenerationStage("terrain", terrainGenerator.canGenerateOffThread(), terrainGenerator, terrainGenerator::generate));
+        primerStages.add(new GenerationStage("surface", terrainGenerator.canReplaceBlocksOffThread(), surfaceLock, (chunkX, chunkZ, primer, context) -> terrainGenerator.replaceBlocksForBiome(chunkX, chunkZ, primer, context.getBlockBiomes(), context)));
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_TENDRILS)) {
-            this.tendrilGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+            primerStages.add(new GenerationStage("tendrils", true, tendrilGenerator, (chunkX, chunkZ, primer, context) -> tendrilGenerator.generate(worldObj, chunkX, chunkZ, primer)));
         }
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_CANYONS)) {
-            this.canyonGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+            primerStages.add(new GenerationStage("canyons", true, canyonGenerator, (chunkX, chunkZ, primer, context) -> canyonGenerator.generate(worldObj, chunkX, chunkZ, primer)));
         }
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_PYRAMIDS)) {
-            this.pyramidGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+            primerStages.add(new GenerationStage("pyramids", true, null, (chunkX, chunkZ, primer, context) -> pyramidGenerator.generate(worldObj, chunkX, chunkZ, primer, context)));
         }
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_ORBS)) {
-            this.sphereGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+            primerStages.add(new GenerationStage("orbs", true, sphereGenerator, (chunkX, chunkZ, primer, context) -> sphereGenerator.generate(worldObj, chunkX, chunkZ, primer, context)));
         }
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_HUGEORBS)) {
-            this.hugeSphereGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+            primerStages.add(new GenerationStage("hugeorbs", true, hugeSphereGenerator, (chunkX, chunkZ, primer, context) -> hugeSphereGenerator.generate(worldObj, chunkX, chunkZ, primer, context)));
         }
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_LIQUIDORBS)) {
-            this.liquidSphereGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+            primerStages.add(new GenerationStage("liquidorbs", true, liquidSphereGenerator, (chunkX, chunkZ, primer, context) -> liquidSphereGenerator.generate(worldObj, chunkX, chunkZ, primer, context)));
         }
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_HUGELIQUIDORBS)) {
-            this.hugeLiquidSphereGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+            primerStages.add(new GenerationStage("hugeliquidorbs", true, hugeLiquidSphereGenerator, (chunkX, chunkZ, primer, context) -> hugeLiquidSphereGenerator.generate(worldObj, chunkX, chunkZ, primer, context)));
+        }
+        if (WorldgenConfiguration.oregenInPrimer) {
+            MapGenOres oreGenerator = new MapGenOres(worldObj.getSeed());
+            if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_OREGEN)) {
+                for (IBlockState block : dimensionInformation.getExtraOregen()) {
+                    oreGenerator.addOre(block, dimensionInformation.getBaseBlockForTerrain(), 7, 10, 12, 2, 60);
+                }
+            }
+            oreGenerator.addOre(GenericWorldGenerator.getDimensionalShardOre(), Blocks.stone.getDefaultState(),
+                    WorldgenConfiguration.oreMinimumVeinSize, WorldgenConfiguration.oreMaximumVeinSize, WorldgenConfiguration.oreMaximumVeinCount,
+                    WorldgenConfiguration.oreMinimumHeight, WorldgenConfiguration.oreMaximumHeight);
+            primerStages.add(new GenerationStage("ores", true, null, oreGenerator::generate));
+        }
+        while (offThreadStages < primerStages.size() && primerStages.get(offThreadStages).isOffThread()) {
+            offThreadStages++;
         }
+
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_CAVES)) {
-            this.caveGenerator.generate(this, this.worldObj, chunkX, chunkZ, chunkprimer);
+            chunkStages.add(createMapGenStage("caves", caveGenerator));
         }
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_DENSE_CAVES)) {
-            this.denseCaveGenerator.generate(this, this.worldObj, chunkX, chunkZ, chunkprimer);
+            chunkStages.add(createMapGenStage("densecaves", denseCaveGenerator));
         }
         if (dimensionInformation.hasFeatureType(FeatureType.FEATURE_RAVINES)) {
-            this.ravineGenerator.generate(this, this.worldObj, chunkX, chunkZ, chunkprimer);
+            chunkStages.add(createMapGenStage("ravines", ravineGenerator));
         }
 
+        // The order of the structures matters since they share the random in populate().
         if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_MINESHAFT)) {
-            this.mineshaftGenerator.generate(this, this.worldObj, chunkX, chunkZ, chunkprimer);
+            structures.add(mineshaftGenerator);
+            chunkStages.add(createMapGenStage("mineshafts", mineshaftGenerator));
         }
         if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_VILLAGE)) {
-            this.villageGenerator.generate(this, this.worldObj, chunkX, chunkZ, chunkprimer);
+            structures.add(villageGenerator);
+            chunkStages.add(createMapGenStage("villages", villageGenerator));
         }
         if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_STRONGHOLD)) {
-            this.strongholdGenerator.generate(this, this.worldObj, chunkX, chunkZ, chunkprimer);
+            structures.add(strongholdGenerator);
+            chunkStages.add(createMapGenStage("strongholds", strongholdGenerator));
         }
         if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_FORTRESS)) {
-            this.genNetherBridge.generate(this, this.worldObj, chunkX, chunkZ, chunkprimer);
+            structures.add(genNetherBridge);
+            chunkStages.add(createMapGenStage("fortresses", genNetherBridge));
+            fortressIndex = new StructureIndex(genNetherBridge);
         }
         if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_SCATTERED)) {
-            this.scatteredFeatureGenerator.generate(this, this.worldObj, chunkX, chunkZ, chunkprimer);
+            structures.add(scatteredFeatureGenerator);
+            chunkStages.add(createMapGenStage("scattered", scatteredFeatureGenerator));
+            scatteredFeatureIndex = new StructureIndex(scatteredFeatureGenerator);
+        }
+    }
+
+    private GenerationStage createMapGenStage(String name, MapGenBase mapGen) {
+        return new GenerationStage(name, (chunkX, chunkZ, primer, context) -> mapGen.generate(this, worldObj, chunkX, chunkZ, primer));
+    }
+
+    public List<GenerationStage> getPrimerStages() {
+        return primerStages;
+    }
+
+    public List<GenerationStage> getChunkStages() {
+        return chunkStages;
+    }
+
+    @Override
+    public Chunk provideChunk(BlockPos blockPosIn) {
+        return this.provideChunk(blockPosIn.getX() >> 4, blockPosIn.getZ() >> 4);
+    }
+
+    /**
+     * Will return back a chunk, if it doesn't exist and its not a MP client it will generates all the blocks for the
+     * specified chunk from the map seed and chunk seed
+     */
+    @Override
+    public Chunk provideChunk(int chunkX, int chunkZ) {
+        GenerationContext context = primerPipeline.take(chunkX, chunkZ);
+        if (context == null) {
+            context = GenerationContext.borrow();
+            sampleBiomes(context, chunkX, chunkZ);
+            generatePrimer(chunkX, chunkZ, context, 0, primerStages.size());
+        } else {
+            // The worker only did the stages that can run off the server thread.
+            generatePrimer(chunkX, chunkZ, context, offThreadStages, primerStages.size());
+        }
+        try {
+            Chunk chunk = generateChunk(chunkX, chunkZ, context);
+            CascadeDetector.onChunkGenerated(worldObj, chunkX, chunkZ);
+            return chunk;
+        } finally {
+            // The chunk has its own copy of the blocks and biomes now.
+            context.release();
+        }
+    }
+
+    private Chunk generateChunk(int chunkX, int chunkZ, GenerationContext context) {
+        ChunkPrimer chunkprimer = context.getPrimer();
+
+        // The chunk stage. The vanilla based carvers query the biome cache of the world and the structures
+        // keep their own world data so these always run on the server thread.
+        for (GenerationStage stage : chunkStages) {
+            stage.generate(chunkX, chunkZ, chunkprimer, context);
         }
 
 //        this.ruinedCitiesGenerator.generate(this.worldObj, chunkX, chunkZ, ablock, abyte);
 
         Chunk chunk = new Chunk(this.worldObj, chunkprimer, chunkX, chunkZ);
         byte[] abyte1 = chunk.getBiomeArray();
+        BiomeGenBase[] biomes = context.getBlockBiomes();
 
         for (int k = 0; k < abyte1.length; ++k) {
-            abyte1[k] = (byte) this.biomesForGeneration[k].biomeID;
+            abyte1[k] = (byte) biomes[k].biomeID;
         }
 
         chunk.generateSkylightMap();
@@ -349,6 +447,50 @@ public class GenericChunkProvider implements IChunkProvider {
         return chunk;
     }
 
+    /**
+     * Sample the biomes needed for a chunk into the arrays of the context (reusing them).
+     * The biome layers are not thread safe so this must be called on the server thread.
+     */
+    public void sampleBiomes(GenerationContext context, int chunkX, int chunkZ) {
+        // The 10x10 biome lattice used for blending the terrain noise.
+        context.setNoiseBiomes(this.worldObj.getWorldChunkManager().getBiomesForGeneration(context.getNoiseBiomes(), chunkX * 4 - 2, chunkZ * 4 - 2, 10, 10));
+        // The 16x16 per block biomes.
+        context.setBlockBiomes(this.worldObj.getWorldChunkManager().loadBlockGeneratorData(context.getBlockBiomes(), chunkX * 16, chunkZ * 16, 16, 16));
+    }
+
+    /**
+     * The number of primer stages that ChunkPrimerPipeline can run on a worker thread. These are
+     * the stages up to the first one that posts Forge events or calls into biome code.
+     */
+    public int getOffThreadStages() {
+        return offThreadStages;
+    }
+
+    /**
+     * The primer stage: terrain, biome surface and the RFTools carvers. This only works on the
+     * primer and biomes of the context. Only the stages before getOffThreadStages() can run
+     * outside the server thread (see ChunkPrimerPipeline).
+     */
+    public void generatePrimer(int chunkX, int chunkZ, GenerationContext context, int fromStage, int toStage) {
+        ChunkPrimer chunkprimer = context.getPrimer();
+
+        if (fromStage == 0) {
+            context.getRandom().setSeed(chunkX * 341873128712L + chunkZ * 132897987541L + 123456);
+        }
+        for (int i = fromStage ; i < toStage ; i++) {
+            primerStages.get(i).generate(chunkX, chunkZ, chunkprimer, context);
+        }
+    }
+
+    public ChunkPrimerPipeline getPrimerPipeline() {
+        return primerPipeline;
+    }
+
+    // Null if the local mob density is not limited in this dimension.
+    public LocalMobDensity getLocalMobDensity() {
+        return localMobDensity;
+    }
+
     /**
      * Checks to see if a chunk exists at x, y
      */
@@ -376,20 +518,11 @@ public class GenericChunkProvider implements IChunkProvider {
 
         ChunkCoordIntPair cp = new ChunkCoordIntPair(chunkX, chunkZ);
 
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_MINESHAFT)) {
-            this.mineshaftGenerator.generateStructure(this.worldObj, this.rand, cp);
-        }
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_VILLAGE)) {
-            flag = this.villageGenerator.generateStructure(this.worldObj, this.rand, cp);
-        }
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_STRONGHOLD)) {
-            this.strongholdGenerator.generateStructure(this.worldObj, this.rand, cp);
-        }
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_FORTRESS)) {
-            this.genNetherBridge.generateStructure(this.worldObj, this.rand, cp);
-        }
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_SCATTERED)) {
-            this.scatteredFeatureGenerator.generateStructure(this.worldObj, this.rand, cp);
+        for (MapGenStructure structure : structures) {
+            boolean generated = structure.generateStructure(this.worldObj, this.rand, cp);
+            if (structure == villageGenerator) {
+                flag = generated;
+            }
         }
 
         int k1;
@@ -450,18 +583,23 @@ public class GenericChunkProvider implements IChunkProvider {
         z += 8;
 
         doGen = TerrainGen.populate(chunkProvider, worldObj, rand, chunkX, chunkZ, flag, ICE);
-        for (k1 = 0; doGen && k1 < 16; ++k1) {
-            for (l1 = 0; l1 < 16; ++l1) {
-                i2 = this.worldObj.getPrecipitationHeight(new BlockPos(x + k1, 0, z + l1)).getY();
-
-                if (this.worldObj.canBlockFreeze(new BlockPos(k1 + x, i2 - 1, l1 + z), false)) {
-                    this.worldObj.setBlockState(new BlockPos(k1 + x, i2 - 1, l1 + z), Blocks.ice.getDefaultState(), 2);
-                }
+        if (doGen) {
+            ChunkBlockWriter writer = new ChunkBlockWriter(worldObj);
+            for (k1 = 0; k1 < 16; ++k1) {
+                for (l1 = 0; l1 < 16; ++l1) {
+                    BlockPos top = this.worldObj.getPrecipitationHeight(new BlockPos(x + k1, 0, z + l1));
+                    BlockPos below = top.down();
+
+                    if (this.worldObj.canBlockFreeze(below, false)) {
+                        writer.setBlockState(below.getX(), below.getY(), below.getZ(), Blocks.ice.getDefaultState());
+                    }
 
-                if (this.worldObj.canSnowAt(new BlockPos(k1 + x, i2, l1 + z), true)) {
-                    this.worldObj.setBlockState(new BlockPos(k1 + x, i2, l1 + z), Blocks.snow_layer.getDefaultState(), 2);
+                    if (this.worldObj.canSnowAt(top, true)) {
+                        writer.setBlockState(top.getX(), top.getY(), top.getZ(), Blocks.snow_layer.getDefaultState());
+                    }
                 }
             }
+            writer.flush();
         }
 
         MinecraftForge.EVENT_BUS.post(new PopulateChunkEvent.Post(chunkProvider, worldObj, rand, chunkX, chunkZ, flag));
@@ -526,19 +664,23 @@ public class GenericChunkProvider implements IChunkProvider {
             for (int i = 0 ; i < extraSpawns.size() ; i++) {
                 Class entityClass = extraSpawns.get(i).entityClass;
                 if (IAnimals.class.isAssignableFrom(entityClass)) {
-                    int count = worldObj.countEntities(entityClass);
+                    int count = extraSpawnsCounter.getCount(i);
                     if (count < extraSpawnsMax.get(i)) {
                         creatures.add(extraSpawns.get(i));
                     }
                 }
             }
         } else if (creatureType == EnumCreatureType.MONSTER) {
+            if (localMobDensity != null && localMobDensity.isTooDense(pos, -1)) {
+                // Too many hostile mobs around a player already.
+                return Collections.emptyList();
+            }
             creatures = new ArrayList(creatures);
             for (int i = 0 ; i < extraSpawns.size() ; i++) {
                 Class entityClass = extraSpawns.get(i).entityClass;
                 if (IMob.class.isAssignableFrom(entityClass)) {
-                    int count = worldObj.countEntities(entityClass);
-                    if (count < extraSpawnsMax.get(i)) {
+                    int count = extraSpawnsCounter.getCount(i);
+                    if (count < extraSpawnsMax.get(i) && (localMobDensity == null || !localMobDensity.isTooDense(pos, i))) {
                         creatures.add(extraSpawns.get(i));
                     }
                 }
@@ -555,18 +697,21 @@ public class GenericChunkProvider implements IChunkProvider {
             if (dimensionInformation.isPeaceful()) {
                 return Collections.emptyList();
             }
-            if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_SCATTERED)) {
-                if (this.scatteredFeatureGenerator.func_175798_a(pos)) {
+            if (scatteredFeatureIndex != null) {
+                // Same as MapGenScatteredFeature.func_175798_a: only witch huts have their own spawn list.
+                StructureStart start = scatteredFeatureIndex.getStructureAt(pos);
+                if (start instanceof MapGenScatteredFeature.Start && !start.getComponents().isEmpty()
+                        && start.getComponents().getFirst() instanceof ComponentScatteredFeaturePieces.SwampHut) {
                     return this.scatteredFeatureGenerator.getScatteredFeatureSpawnList();
                 }
             }
 
-            if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_FORTRESS)) {
-                if (this.genNetherBridge.func_175795_b(pos)) {
+            if (fortressIndex != null) {
+                if (fortressIndex.getStructureAt(pos) != null) {
                     return this.genNetherBridge.getSpawnList();
                 }
 
-                if (this.genNetherBridge.isPositionInStructure(this.worldObj, pos) && this.worldObj.getBlockState(pos.down()).getBlock() == Blocks.nether_brick) {
+                if (fortressIndex.isPositionInStructure(pos) && this.worldObj.getBlockState(pos.down()).getBlock() == Blocks.nether_brick) {
                     return this.genNetherBridge.getSpawnList();
                 }
             }
@@ -591,20 +736,8 @@ public class GenericChunkProvider implements IChunkProvider {
 
     @Override
     public void recreateStructures(Chunk chunk, int chunkX, int chunkZ) {
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_MINESHAFT)) {
-            this.mineshaftGenerator.generate(this, this.worldObj, chunkX, chunkZ, null);
-        }
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_VILLAGE)) {
-            this.villageGenerator.generate(this, this.worldObj, chunkX, chunkZ, null);
-        }
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_STRONGHOLD)) {
-            this.strongholdGenerator.generate(this, this.worldObj, chunkX, chunkZ, null);
-        }
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_FORTRESS)) {
-            this.genNetherBridge.generate(this, this.worldObj, chunkX, chunkZ, null);
-        }
-        if (dimensionInformation.hasStructureType(StructureType.STRUCTURE_SCATTERED)) {
-            this.scatteredFeatureGenerator.generate(this, this.worldObj, chunkX, chunkZ, null);
+        for (MapGenStructure structure : structures) {
+            structure.generate(this, this.worldObj, chunkX, chunkZ, null);
         }
     }
 }
\ No newline at end of file
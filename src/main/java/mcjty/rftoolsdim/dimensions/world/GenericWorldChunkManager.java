@@ -54,7 +54,8 @@ public class GenericWorldChunkManager extends WorldChunkManager {
             case CONTROLLER_MAGICAL:
             case CONTROLLER_FOREST:
             case CONTROLLER_FILTERED:
-                rflayer = new GenLayerFiltered(this, seed, layer[0], type);
+                // The filtered layer is queried several times per chunk for overlapping areas so put a tile cache in front of it.
+                rflayer = new GenLayerTileCache(seed, new GenLayerFiltered(this, seed, layer[0], type));
                 break;
         }
         GenLayerVoronoiZoom zoomLayer = new GenLayerVoronoiZoom(10L, rflayer);
@@ -32,6 +32,16 @@ import java.util.Random;
 
 public class GenericWorldGenerator implements IWorldGenerator {
 
+    private static IBlockState dimensionalShardOre = null;
+
+    public static IBlockState getDimensionalShardOre() {
+        if (dimensionalShardOre == null) {
+            Block dimensionalShardBlock = GameRegistry.findBlock("rftools", "dimensional_shard_ore");
+            dimensionalShardOre = dimensionalShardBlock.getDefaultState();
+        }
+        return dimensionalShardOre;
+    }
+
     @Override
     public void generate(Random random, int chunkX, int chunkZ, World world, IChunkProvider chunkGenerator, IChunkProvider chunkProvider) {
         RfToolsDimensionManager manager = RfToolsDimensionManager.getDimensionManager(world);
@@ -40,43 +50,68 @@ public class GenericWorldGenerator implements IWorldGenerator {
         }
 
         DimensionInformation information = manager.getDimensionInformation(world.provider.getDimensionId());
-        IBlockState baseBlock = information.getBaseBlockForTerrain();
-        if (information.hasFeatureType(FeatureType.FEATURE_OREGEN)) {
-            for (IBlockState block : information.getExtraOregen()) {
-                addOreSpawn(block, baseBlock, world, random, chunkX * 16, chunkZ * 16, 7, 10, 12, 2, 60);
-            }
+        CascadeDetector.begin(world, chunkX, chunkZ);
+        try {
+            CascadeDetector.setFeature("deferred");
+            CascadeDetector.runDeferred(world, chunkX, chunkZ);
+            generateFeatures(random, chunkX, chunkZ, world, information);
+        } finally {
+            CascadeDetector.end();
         }
+    }
+
+    private void generateFeatures(Random random, int chunkX, int chunkZ, World world, DimensionInformation information) {
+        if (!WorldgenConfiguration.oregenInPrimer) {
+            CascadeDetector.setFeature("oregen");
+            // Otherwise the ores are already placed by the chunk provider (MapGenOres).
+            IBlockState baseBlock = information.getBaseBlockForTerrain();
+            if (information.hasFeatureType(FeatureType.FEATURE_OREGEN)) {
+                for (IBlockState block : information.getExtraOregen()) {
+                    addOreSpawn(block, baseBlock, world, random, chunkX * 16, chunkZ * 16, 7, 10, 12, 2, 60);
+                }
+            }
 
-        Block dimensionalShardBlock = GameRegistry.findBlock("rftools", "dimensional_shard_ore");
-        addOreSpawn(dimensionalShardBlock.getDefaultState(), Blocks.stone.getDefaultState(), world, random, chunkX * 16, chunkZ * 16,
-                    WorldgenConfiguration.oreMinimumVeinSize, WorldgenConfiguration.oreMaximumVeinSize, WorldgenConfiguration.oreMaximumVeinCount,
-                    WorldgenConfiguration.oreMinimumHeight, WorldgenConfiguration.oreMaximumHeight);
+            addOreSpawn(getDimensionalShardOre(), Blocks.stone.getDefaultState(), world, random, chunkX * 16, chunkZ * 16,
+                        WorldgenConfiguration.oreMinimumVeinSize, WorldgenConfiguration.oreMaximumVeinSize, WorldgenConfiguration.oreMaximumVeinCount,
+                        WorldgenConfiguration.oreMinimumHeight, WorldgenConfiguration.oreMaximumHeight);
+        }
 
         if (information.isPatreonBitSet(Patreons.PATREON_PUPPETEER) && Math.abs(chunkX) <= 1 && Math.abs(chunkZ) <= 1) {
-            generateBigSpawnPlatform(world, chunkX, chunkZ, puppeteerSpawnPlatform);
+            CascadeDetector.setFeature("bigplatform");
+            if (CascadeDetector.shouldDefer(world, 0, 0)) {
+                // The height of the platform is found in the center chunk so wait until that one is generated.
+                CascadeDetector.defer(world, 0, 0, () -> generateBigSpawnPlatform(world, chunkX, chunkZ, puppeteerSpawnPlatform, PUPPETEER_PLATFORM));
+            } else {
+                generateBigSpawnPlatform(world, chunkX, chunkZ, puppeteerSpawnPlatform, PUPPETEER_PLATFORM);
+            }
         } else if (chunkX == 0 && chunkZ == 0) {
+            CascadeDetector.setFeature("platform");
             generateSpawnPlatform(world);
         } else if ((Math.abs(chunkX) > 6 || Math.abs(chunkZ) > 6) && !information.hasFeatureType(FeatureType.FEATURE_NODIMLETBUILDINGS)) {
             // Not too close to starting platform we possibly generate dungeons.
             if (random.nextInt(WorldgenConfiguration.dungeonChance) == 1) {
+                CascadeDetector.setFeature("dungeon");
                 generateDimletDungeon(random, chunkX, chunkZ, world);
             }
         }
 
         if ((Math.abs(chunkX) >= 2 || Math.abs(chunkZ) >= 2) && information.isPatreonBitSet(Patreons.PATREON_COLOREDPRISMS)) {
             if (random.nextInt(10) == 1) {
+                CascadeDetector.setFeature("prism");
                 generatePrism(chunkX, chunkZ, world);
             }
         }
 
         if ((Math.abs(chunkX) >= 1 || Math.abs(chunkZ) >= 1) && information.isPatreonBitSet(Patreons.PATREON_PINKPILLARS)) {
             if (random.nextInt(2) == 1) {
+                CascadeDetector.setFeature("pillar");
                 generatePillar(random, chunkX, chunkZ, world);
             }
         }
 
         if ((Math.abs(chunkX) >= 3 || Math.abs(chunkZ) >= 3) && information.hasFeatureType(FeatureType.FEATURE_VOLCANOES)) {
             if (random.nextInt(WorldgenConfiguration.volcanoChance) == 1) {
+                CascadeDetector.setFeature("volcano");
                 generateVolcano(random, chunkX, chunkZ, world);
             }
         }
@@ -138,25 +173,13 @@ public class GenericWorldGenerator implements IWorldGenerator {
             y = y1;
         }
         if (y > 10 && y < 230) {
-            for (int i = 7 ; i >= 0 ; i--) {
-                if (i == 0) {
-                    setStainedGlassIfAir(world, x, y, z, i);
-                } else {
-                    for (int j = -i; j <= i - 1; j++) {
-                        setStainedGlassIfAir(world, x + j + 1, y, z + i, i);
-                        setStainedGlassIfAir(world, x + i, y, z + j, i);
-                        setStainedGlassIfAir(world, x - j - 1, y, z - i, i);
-                        setStainedGlassIfAir(world, x - i, y, z - j, i);
-                    }
-                }
-                y++;
+            IBlockState[] palette = new IBlockState[9];
+            for (int i = 0 ; i <= 7 ; i++) {
+                palette[i + 1] = Blocks.stained_glass.getStateFromMeta(i);
             }
-        }
-    }
-
-    private void setStainedGlassIfAir(World world, int x, int y, int z, int i) {
-        if (world.isAirBlock(new BlockPos(x, y, z))) {
-            world.setBlockState(new BlockPos(x, y, z), Blocks.stained_glass.getStateFromMeta(i), 2);
+            ChunkBlockWriter writer = new ChunkBlockWriter(world);
+            PRISM.stamp(writer, x - 7, y, z - 7, palette);
+            writer.flush();
         }
     }
 
@@ -165,10 +188,13 @@ public class GenericWorldGenerator implements IWorldGenerator {
         int z = chunkZ * 16 + random.nextInt(16);
         int y = world.getTopSolidOrLiquidBlock(new BlockPos(x, 0, z)).getY();
         if (y > 10 && y < 240) {
-            for (int i = 0 ; i < random.nextInt(3) + 2 ; i++) {
-                world.setBlockState(new BlockPos(x, y++, z), Blocks.stained_hardened_clay.getStateFromMeta(6), 2);
+            int height = 0;
+            while (height < random.nextInt(3) + 2) {
+                height++;
             }
-            world.setBlockState(new BlockPos(x, y, z), Blocks.stained_glass.getStateFromMeta(6), 2);
+            ChunkBlockWriter writer = new ChunkBlockWriter(world);
+            PILLARS[height].stamp(writer, x, y, z, new IBlockState[] { null, Blocks.stained_hardened_clay.getStateFromMeta(6), Blocks.stained_glass.getStateFromMeta(6) });
+            writer.flush();
         }
     }
 
@@ -199,6 +225,131 @@ public class GenericWorldGenerator implements IWorldGenerator {
             { -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1 }
     };
 
+    // The structures below are stamped with a palette that is given when they are generated.
+    // Palette index 0 is left alone (receivers, doors, glowstone, ... are set separately).
+    private static final Prefab PUPPETEER_PLATFORM = createBigSpawnPlatform(puppeteerSpawnPlatform);
+    private static final Prefab SPAWN_PLATFORM = createSpawnPlatform(3, false);
+    private static final Prefab SHELTER_PLATFORM = createSpawnPlatform(4, true);
+    private static final Prefab DUNGEON = createDungeon();
+    private static final Prefab PRISM = createPrism();
+    private static final Prefab[] PILLARS = new Prefab[] { createPillar(0), createPillar(1), createPillar(2), createPillar(3), createPillar(4) };
+
+    // Palette: 1-16 are the clay colors, 17 is air. Receivers (-2) are not in the prefab.
+    private static Prefab createBigSpawnPlatform(int[][] platform) {
+        int r = platform.length;
+        Prefab prefab = new Prefab(r, 4, r, false);
+        for (int x = 0 ; x < r ; x++) {
+            for (int z = 0 ; z < r ; z++) {
+                int color = platform[r - x - 1][z];
+                if (color == -1) {
+                    prefab.set(x, 0, z, 17);
+                } else if (color != -2) {
+                    prefab.set(x, 0, z, color + 1);
+                }
+                for (int y = 1 ; y <= 3 ; y++) {
+                    prefab.set(x, y, z, 17);
+                }
+            }
+        }
+        return prefab;
+    }
+
+    // Palette: 1 floor, 2 air, 3 glass pane, 4 shelter walls and roof.
+    private static Prefab createSpawnPlatform(int bounds, boolean shelter) {
+        int size = bounds * 2 + 1;
+        Prefab prefab = new Prefab(size, 5, size, false);
+        for (int x = -bounds ; x <= bounds ; x++) {
+            for (int z = -bounds ; z <= bounds ; z++) {
+                int px = x + bounds;
+                int pz = z + bounds;
+                if (!(x == 0 && z == 0) && !(x == 0 && (z == 2 || z == -2))) {
+                    prefab.set(px, 0, pz, 1);
+                }
+                for (int y = 1 ; y <= 3 ; y++) {
+                    prefab.set(px, y, pz, 2);
+                }
+                if (shelter) {
+                    if (x == -bounds || x == bounds || z == -bounds || z == bounds) {
+                        for (int y = 1 ; y <= 3 ; y++) {
+                            if (z == 0 && y >= 2 && y <= 3 || x == 0 && y >= 2 && y <= 3 && z == bounds) {
+                                prefab.set(px, y, pz, 3);
+                            } else if (x == 0 && (y == 1 || y == 2) && z == -bounds) {
+                                prefab.set(px, y, pz, 0);
+                            } else {
+                                prefab.set(px, y, pz, 4);
+                            }
+                        }
+                    }
+                    prefab.set(px, 4, pz, 4);
+                }
+            }
+        }
+        return prefab;
+    }
+
+    // Palette: 1 double slab, 2 corner, 3 building block, 4 glass pane, 5 air, 6 slab, 7 iron bars,
+    // 8 and 9 are the base and the bar of the small antenna (or slab and air if there is none).
+    private static Prefab createDungeon() {
+        Prefab prefab = new Prefab(7, 9, 7, false);
+        for (int x = 0 ; x <= 6 ; x++) {
+            for (int z = 0 ; z <= 6 ; z++) {
+                boolean corner = (x == 0 || x == 6) && (z == 0 || z == 6);
+                boolean xside = x == 0 || x == 6;
+                boolean zside = z == 0 || z == 6;
+                boolean antenna = x == 1 && z == 1;
+                boolean smallAntenna = x == 5 && z == 5;
+                prefab.set(x, 0, z, 1);
+                if (corner) {
+                    prefab.set(x, 1, z, 2).set(x, 2, z, 2).set(x, 3, z, 2);
+                } else if (xside) {
+                    prefab.set(x, 1, z, 3).set(x, 2, z, z >= 2 && z <= 4 ? 4 : 3).set(x, 3, z, 3);
+                } else if (zside) {
+                    prefab.set(x, 1, z, 3).set(x, 2, z, 3).set(x, 3, z, 3);
+                } else {
+                    prefab.set(x, 1, z, 5).set(x, 2, z, 5).set(x, 3, z, 5);
+                }
+                if (antenna) {
+                    // The glowstone on top is set separately.
+                    prefab.set(x, 4, z, 1).set(x, 5, z, 7).set(x, 6, z, 7).set(x, 7, z, 7);
+                } else if (smallAntenna) {
+                    prefab.set(x, 4, z, 8).set(x, 5, z, 9).set(x, 6, z, 5).set(x, 7, z, 5).set(x, 8, z, 5);
+                } else {
+                    prefab.set(x, 4, z, 6).set(x, 5, z, 5).set(x, 6, z, 5).set(x, 7, z, 5).set(x, 8, z, 5);
+                }
+            }
+        }
+        return prefab;
+    }
+
+    // Rings of stained glass getting smaller to the top. Palette: 1-8 are the glass colors 0-7.
+    private static Prefab createPrism() {
+        Prefab prefab = new Prefab(15, 8, 15, true);
+        for (int i = 7 ; i >= 0 ; i--) {
+            int y = 7 - i;
+            if (i == 0) {
+                prefab.set(7, y, 7, i + 1);
+            } else {
+                for (int j = -i; j <= i - 1; j++) {
+                    prefab.set(7 + j + 1, y, 7 + i, i + 1);
+                    prefab.set(7 + i, y, 7 + j, i + 1);
+                    prefab.set(7 - j - 1, y, 7 - i, i + 1);
+                    prefab.set(7 - i, y, 7 - j, i + 1);
+                }
+            }
+        }
+        return prefab;
+    }
+
+    // Palette: 1 clay, 2 glass on top.
+    private static Prefab createPillar(int height) {
+        Prefab prefab = new Prefab(1, height + 1, 1, false);
+        for (int y = 0 ; y < height ; y++) {
+            prefab.set(0, y, 0, 1);
+        }
+        prefab.set(0, height, 0, 2);
+        return prefab;
+    }
+
     private boolean isReceiverPresent(World world, int midx, int midz, int starty, int[][] platform) {
         int r = platform.length;
         int sx = -r / 2;
@@ -216,7 +367,7 @@ public class GenericWorldGenerator implements IWorldGenerator {
         return false;
     }
 
-    private void generateBigSpawnPlatform(World world, int chunkX, int chunkZ, int[][] platform) {
+    private void generateBigSpawnPlatform(World world, int chunkX, int chunkZ, int[][] platform, Prefab prefab) {
         RfToolsDimensionManager dimensionManager = RfToolsDimensionManager.getDimensionManager(world);
         DimensionInformation information = dimensionManager.getDimensionInformation(world.provider.getDimensionId());
 
@@ -234,26 +385,21 @@ public class GenericWorldGenerator implements IWorldGenerator {
         }
 
         int r = platform.length;
+        IBlockState[] palette = new IBlockState[18];
+        for (int i = 0 ; i < 16 ; i++) {
+            palette[i + 1] = Blocks.stained_hardened_clay.getStateFromMeta(i);
+        }
+        palette[17] = Blocks.air.getDefaultState();
+        ChunkBlockWriter writer = new ChunkBlockWriter(world);
+        prefab.stampInChunk(writer, midx - r/2, starty, midz - r/2, palette, chunkX, chunkZ);
+        writer.flush();
+
         int sx = - r/2;
         int sz = - r/2;
         for (int x = sx ; x < sx + r ; x++) {
-            int cx = (x + midx) >> 4;
-            if (chunkX == cx) {
-                for (int z = sz; z < sz + r; z++) {
-                    int cz = (z + midz) >> 4;
-                    if (chunkZ == cz) {
-                        int color = platform[r - x - r / 2 -1][z + r / 2];
-                        if (color == -2) {
-                            RFToolsDim.teleportationManager.createReceiver(world, new BlockPos(x+midx, starty, z+midz), information.getName(), -1);
-                        } else if (color != -1) {
-                            world.setBlockState(new BlockPos(x + midx, starty, z + midz), Blocks.stained_hardened_clay.getStateFromMeta(color), 2);
-                        } else {
-                            world.setBlockToAir(new BlockPos(x+midx, starty, z+midz));
-                        }
-                        for (int y = 1 ; y <= 3 ; y++) {
-                            world.setBlockToAir(new BlockPos(x+midx, starty+y, z+midz));
-                        }
-                    }
+            for (int z = sz; z < sz + r; z++) {
+                if (platform[r - x - r / 2 -1][z + r / 2] == -2 && chunkX == (x + midx) >> 4 && chunkZ == (z + midz) >> 4) {
+                    RFToolsDim.teleportationManager.createReceiver(world, new BlockPos(x+midx, starty, z+midz), information.getName(), -1);
                 }
             }
         }
@@ -291,58 +437,37 @@ public class GenericWorldGenerator implements IWorldGenerator {
             bounds = 4;
         }
 
-        for (int x = -bounds ; x <= bounds ; x++) {
-            for (int z = -bounds ; z <= bounds ; z++) {
-                if (x == 0 && z == 0) {
-                    RFToolsDim.teleportationManager.createReceiver(world, new BlockPos(x+midx, starty, z+midz), information.getName(), -1);
-                } else if (x == 0 && (z == 2 || z == -2)) {
-                    world.setBlockState(new BlockPos(x + midx, starty, z + midz), Blocks.glowstone.getDefaultState(), 3);
-                } else {
-                    world.setBlockState(new BlockPos(x + midx, starty, z + midz), Blocks.stained_hardened_clay.getStateFromMeta(3), 2);
-                }
-                for (int y = 1 ; y <= 3 ; y++) {
-                    world.setBlockToAir(new BlockPos(x+midx, starty+y, z+midz));
-                }
-                // Check the top layer. If it is something other then air we will replace it with clay as well.
-                if (!world.isAirBlock(new BlockPos(x+midx, starty+4, z+midz))) {
-                    world.setBlockState(new BlockPos(x + midx, starty + 4, z + midz), Blocks.stained_hardened_clay.getStateFromMeta(3), 2);
-                }
-            }
-        }
+        IBlockState[] palette = new IBlockState[] { null, Blocks.stained_hardened_clay.getStateFromMeta(3), Blocks.air.getDefaultState(),
+                Blocks.glass_pane.getStateFromMeta(0), Blocks.stained_hardened_clay.getStateFromMeta(9) };
+        ChunkBlockWriter writer = new ChunkBlockWriter(world);
+        (shelter ? SHELTER_PLATFORM : SPAWN_PLATFORM).stamp(writer, midx - bounds, starty, midz - bounds, palette);
+        RFToolsDim.teleportationManager.createReceiver(world, new BlockPos(midx, starty, midz), information.getName(), -1);
+        world.setBlockState(new BlockPos(midx, starty, midz - 2), Blocks.glowstone.getDefaultState(), 3);
+        world.setBlockState(new BlockPos(midx, starty, midz + 2), Blocks.glowstone.getDefaultState(), 3);
 
         if (shelter) {
-            for (int y = 1 ; y <= 3 ; y++) {
-                for (int x = -bounds ; x <= bounds ; x++) {
-                    for (int z = -bounds ; z <= bounds ; z++) {
-                        if (x == -bounds || x == bounds || z == -bounds || z == bounds) {
-                            if (z == 0 && y >= 2 && y <= 3 || x == 0 && y >= 2 && y <= 3 && z == bounds) {
-                                world.setBlockState(new BlockPos(x + midx, starty + y, z + midz), Blocks.glass_pane.getStateFromMeta(0), 2);
-                            } else if (x == 0 && y == 1 && z == -bounds) {
-                                world.setBlockState(new BlockPos(x + midx, starty + y, z + midz), Blocks.iron_door.getStateFromMeta(1), 2);
-                            } else if (x == 0 && y == 2 && z == -bounds) {
-                                world.setBlockState(new BlockPos(x + midx, starty + y, z + midz), Blocks.iron_door.getStateFromMeta(8), 2);
-                            } else {
-                                world.setBlockState(new BlockPos(x + midx, starty + y, z + midz), Blocks.stained_hardened_clay.getStateFromMeta(9), 2);
-                            }
-                        }
-                    }
-                }
-            }
+            world.setBlockState(new BlockPos(midx, starty + 1, midz - bounds), Blocks.iron_door.getStateFromMeta(1), 2);
+            world.setBlockState(new BlockPos(midx, starty + 2, midz - bounds), Blocks.iron_door.getStateFromMeta(8), 2);
+            world.setBlockState(new BlockPos(midx - 1, starty + 2, midz - bounds - 1), Blocks.stone_button.getStateFromMeta(4), 2);
+            world.setBlockState(new BlockPos(midx + 1, starty + 2, midz - bounds + 1), Blocks.stone_button.getStateFromMeta(3), 2);
+
+            writer.setBlockState(midx + 1, starty, midz - bounds - 1, Blocks.stained_hardened_clay.getStateFromMeta(3));
+            writer.setBlockState(midx, starty, midz - bounds - 1, Blocks.stained_hardened_clay.getStateFromMeta(3));
+            writer.setBlockState(midx - 1, starty, midz - bounds - 1, Blocks.stained_hardened_clay.getStateFromMeta(3));
+            writer.setBlockState(midx + 1, starty, midz - bounds - 2, Blocks.stained_hardened_clay.getStateFromMeta(3));
+            writer.setBlockState(midx, starty, midz - bounds - 2, Blocks.stained_hardened_clay.getStateFromMeta(3));
+            writer.setBlockState(midx - 1, starty, midz - bounds - 2, Blocks.stained_hardened_clay.getStateFromMeta(3));
+        } else {
             for (int x = -bounds ; x <= bounds ; x++) {
                 for (int z = -bounds ; z <= bounds ; z++) {
-                    world.setBlockState(new BlockPos(x + midx, starty + 4, z + midz), Blocks.stained_hardened_clay.getStateFromMeta(9), 2);
+                    // Check the top layer. If it is something other then air we will replace it with clay as well.
+                    if (!writer.isAirBlock(x + midx, starty + 4, z + midz)) {
+                        writer.setBlockState(x + midx, starty + 4, z + midz, Blocks.stained_hardened_clay.getStateFromMeta(3));
+                    }
                 }
             }
-            world.setBlockState(new BlockPos(midx - 1, starty + 2, midz - bounds - 1), Blocks.stone_button.getStateFromMeta(4), 2);
-            world.setBlockState(new BlockPos(midx + 1, starty + 2, midz - bounds + 1), Blocks.stone_button.getStateFromMeta(3), 2);
-
-            world.setBlockState(new BlockPos(midx + 1, starty, midz - bounds - 1), Blocks.stained_hardened_clay.getStateFromMeta(3), 2);
-            world.setBlockState(new BlockPos(midx, starty, midz - bounds - 1), Blocks.stained_hardened_clay.getStateFromMeta(3), 2);
-            world.setBlockState(new BlockPos(midx - 1, starty, midz - bounds - 1), Blocks.stained_hardened_clay.getStateFromMeta(3), 2);
-            world.setBlockState(new BlockPos(midx + 1, starty, midz - bounds - 2), Blocks.stained_hardened_clay.getStateFromMeta(3), 2);
-            world.setBlockState(new BlockPos(midx, starty, midz - bounds - 2), Blocks.stained_hardened_clay.getStateFromMeta(3), 2);
-            world.setBlockState(new BlockPos(midx - 1, starty, midz - bounds - 2), Blocks.stained_hardened_clay.getStateFromMeta(3), 2);
         }
+        writer.flush();
 
         registerReceiver(world, dimensionManager, information, midx, midz, starty);
     }
@@ -378,86 +503,54 @@ public class GenericWorldGenerator implements IWorldGenerator {
         }
 
         // Spawn the building
+        IBlockState[] palette = new IBlockState[] { null,
+                Blocks.double_stone_slab.getDefaultState(),
+                cornerBlock.getStateFromMeta(1),
+                buildingBlock.getStateFromMeta(color),
+                Blocks.glass_pane.getStateFromMeta(0),
+                Blocks.air.getDefaultState(),
+                Blocks.stone_slab.getDefaultState(),
+                Blocks.iron_bars.getDefaultState(),
+                doSmallAntenna ? Blocks.double_stone_slab.getDefaultState() : Blocks.stone_slab.getDefaultState(),
+                doSmallAntenna ? Blocks.iron_bars.getDefaultState() : Blocks.air.getDefaultState() };
+        ChunkBlockWriter writer = new ChunkBlockWriter(world);
+        DUNGEON.stamp(writer, midx - 3, starty, midz - 3, palette);
+        world.setBlockState(new BlockPos(midx - 2, starty + 8, midz - 2), Blocks.glowstone.getDefaultState(), 3);
+
+        // Spawn stone under the building for as long as it is air.
         for (int x = midx - 3 ; x  <= midx + 3 ; x++) {
             for (int z = midz - 3 ; z  <= midz + 3 ;z ++) {
-                boolean corner = (x == midx-3 || x == midx+3) && (z == midz-3 || z == midz+3);
-                boolean xside = x == midx-3 || x == midx+3;
-                boolean zside = z == midz-3 || z == midz+3;
-                boolean antenna = (x == midx-2 && z == midz-2);
-                boolean smallAntenna = doSmallAntenna && (x == midx+2 && z == midz+2);
-                world.setBlockState(new BlockPos(x, starty, z), Blocks.double_stone_slab.getDefaultState(), 2);
-                if (corner) {
-                    world.setBlockState(new BlockPos(x, starty + 1, z), cornerBlock.getStateFromMeta(1), 2);
-                    world.setBlockState(new BlockPos(x, starty + 2, z), cornerBlock.getStateFromMeta(1), 2);
-                    world.setBlockState(new BlockPos(x, starty + 3, z), cornerBlock.getStateFromMeta(1), 2);
-                } else if (xside) {
-                    world.setBlockState(new BlockPos(x, starty + 1, z), buildingBlock.getStateFromMeta(color), 2);
-                    if (z >= midz-1 && z <= midz+1) {
-                        world.setBlockState(new BlockPos(x, starty + 2, z), Blocks.glass_pane.getStateFromMeta(0), 2);
-                    } else {
-                        world.setBlockState(new BlockPos(x, starty + 2, z), buildingBlock.getStateFromMeta(color), 2);
-                    }
-                    world.setBlockState(new BlockPos(x, starty + 3, z), buildingBlock.getStateFromMeta(color), 2);
-                } else if (zside) {
-                    world.setBlockState(new BlockPos(x, starty + 1, z), buildingBlock.getStateFromMeta(color), 2);
-                    world.setBlockState(new BlockPos(x, starty + 2, z), buildingBlock.getStateFromMeta(color), 2);
-                    world.setBlockState(new BlockPos(x, starty + 3, z), buildingBlock.getStateFromMeta(color), 2);
-                } else {
-                    world.setBlockToAir(new BlockPos(x, starty+1, z));
-                    world.setBlockToAir(new BlockPos(x, starty+2, z));
-                    world.setBlockToAir(new BlockPos(x, starty+3, z));
-                }
-                if (antenna) {
-                    world.setBlockState(new BlockPos(x, starty + 4, z), Blocks.double_stone_slab.getDefaultState(), 2);
-                    world.setBlockState(new BlockPos(x, starty + 5, z), Blocks.iron_bars.getDefaultState(), 2);
-                    world.setBlockState(new BlockPos(x, starty + 6, z), Blocks.iron_bars.getDefaultState(), 2);
-                    world.setBlockState(new BlockPos(x, starty + 7, z), Blocks.iron_bars.getDefaultState(), 2);
-                    world.setBlockState(new BlockPos(x, starty + 8, z), Blocks.glowstone.getDefaultState(), 3);
-                } else if (smallAntenna) {
-                    world.setBlockState(new BlockPos(x, starty + 4, z), Blocks.double_stone_slab.getDefaultState(), 2);
-                    world.setBlockState(new BlockPos(x, starty + 5, z), Blocks.iron_bars.getDefaultState(), 2);
-                    world.setBlockToAir(new BlockPos(x, starty + 6, z));
-                    world.setBlockToAir(new BlockPos(x, starty + 7, z));
-                    world.setBlockToAir(new BlockPos(x, starty + 8, z));
-                } else {
-                    world.setBlockState(new BlockPos(x, starty + 4, z), Blocks.stone_slab.getDefaultState(), 2);
-                    world.setBlockToAir(new BlockPos(x, starty+5, z));
-                    world.setBlockToAir(new BlockPos(x, starty+6, z));
-                    world.setBlockToAir(new BlockPos(x, starty+7, z));
-                    world.setBlockToAir(new BlockPos(x, starty+8, z));
-                }
-
-                // Spawn stone under the building for as long as it is air.
-                WorldGenerationTools.fillEmptyWithStone(world, x, starty-1, z);
+                WorldGenerationTools.fillEmptyWithStone(writer, x, starty-1, z);
             }
         }
 
         if (doExtraFeature) {
-            if (!WorldGenerationTools.isSolid(world, midx+4, starty, midz-3)) {
-                world.setBlockState(new BlockPos(midx + 4, starty, midz - 3), Blocks.iron_bars.getDefaultState(), 2);
+            if (!writer.isSolid(midx + 4, starty, midz - 3)) {
+                writer.setBlockState(midx + 4, starty, midz - 3, Blocks.iron_bars.getDefaultState());
             }
-            world.setBlockState(new BlockPos(midx + 4, starty + 1, midz - 3), Blocks.iron_bars.getDefaultState(), 2);
-            world.setBlockState(new BlockPos(midx + 4, starty + 2, midz - 3), Blocks.iron_bars.getDefaultState(), 2);
-            if (!WorldGenerationTools.isSolid(world, midx+5, starty, midz-3)) {
-                world.setBlockState(new BlockPos(midx + 5, starty, midz - 3), buildingBlock.getStateFromMeta(color), 2);
+            writer.setBlockState(midx + 4, starty + 1, midz - 3, Blocks.iron_bars.getDefaultState());
+            writer.setBlockState(midx + 4, starty + 2, midz - 3, Blocks.iron_bars.getDefaultState());
+            if (!writer.isSolid(midx + 5, starty, midz - 3)) {
+                writer.setBlockState(midx + 5, starty, midz - 3, buildingBlock.getStateFromMeta(color));
             }
-            world.setBlockState(new BlockPos(midx + 5, starty + 1, midz - 3), buildingBlock.getStateFromMeta(color), 2);
-            world.setBlockState(new BlockPos(midx + 5, starty + 2, midz - 3), buildingBlock.getStateFromMeta(color), 2);
-            WorldGenerationTools.fillEmptyWithStone(world, midx + 4, starty - 1, midz - 3);
-            WorldGenerationTools.fillEmptyWithStone(world, midx+5, starty-1, midz-3);
+            writer.setBlockState(midx + 5, starty + 1, midz - 3, buildingBlock.getStateFromMeta(color));
+            writer.setBlockState(midx + 5, starty + 2, midz - 3, buildingBlock.getStateFromMeta(color));
+            WorldGenerationTools.fillEmptyWithStone(writer, midx + 4, starty - 1, midz - 3);
+            WorldGenerationTools.fillEmptyWithStone(writer, midx + 5, starty - 1, midz - 3);
         }
 
         // Clear the space before the door.
         for (int x = midx-3 ; x <= midx+3 ; x++) {
             for (int y = starty+1 ; y <= starty + 3 ; y++) {
-                world.setBlockToAir(new BlockPos(x, y, midz-4));
+                writer.setBlockToAir(x, y, midz-4);
             }
         }
 
         // Small platform before the door
-        world.setBlockState(new BlockPos(midx - 1, starty, midz - 4), Blocks.double_stone_slab.getDefaultState(), 2);
-        world.setBlockState(new BlockPos(midx, starty, midz - 4), Blocks.double_stone_slab.getDefaultState(), 2);
-        world.setBlockState(new BlockPos(midx + 1, starty, midz - 4), Blocks.double_stone_slab.getDefaultState(), 2);
+        writer.setBlockState(midx - 1, starty, midz - 4, Blocks.double_stone_slab.getDefaultState());
+        writer.setBlockState(midx, starty, midz - 4, Blocks.double_stone_slab.getDefaultState());
+        writer.setBlockState(midx + 1, starty, midz - 4, Blocks.double_stone_slab.getDefaultState());
+        writer.flush();
 
         world.setBlockState(new BlockPos(midx, starty + 1, midz - 3), Blocks.iron_door.getStateFromMeta(1), 2);
         world.setBlockState(new BlockPos(midx, starty + 2, midz - 3), Blocks.iron_door.getStateFromMeta(8), 2);
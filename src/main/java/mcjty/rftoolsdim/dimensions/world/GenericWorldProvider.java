@@ -37,6 +37,8 @@ public class GenericWorldProvider extends WorldProvider implements  /*@todo impl
     private DimensionStorage storage;
     private long seed;
     private Set<String> dimensionTypes = null;  // Used for Recurrent Complex support
+    private GenericChunkProvider chunkProvider = null;
+    private SpawnPolicy spawnPolicy = null;
 
     private long calculateSeed(long seed, int dim) {
         return dim * 13L + seed;
@@ -157,6 +159,25 @@ public class GenericWorldProvider extends WorldProvider implements  /*@todo impl
         }
     }
 
+    /**
+     * The spawn rules of this dimension. Compiled on first use and again after invalidateSpawnPolicy().
+     */
+    public SpawnPolicy getSpawnPolicy() {
+        if (spawnPolicy == null) {
+            spawnPolicy = SpawnPolicy.compile(RfToolsDimensionManager.getDimensionManager(worldObj).getDimensionInformation(dimensionId));
+        }
+        return spawnPolicy;
+    }
+
+    // Call this when the dimension information of this dimension changes.
+    public void invalidateSpawnPolicy() {
+        spawnPolicy = null;
+    }
+
+    public int getEnergyLevel() {
+        return getStorage().getEnergyLevel(dimensionId);
+    }
+
     private DimensionStorage getStorage() {
         if (storage == null) {
             storage = DimensionStorage.getDimensionStorage(worldObj);
@@ -266,7 +287,13 @@ public class GenericWorldProvider extends WorldProvider implements  /*@todo impl
     public IChunkProvider createChunkGenerator() {
         int dim = worldObj.provider.getDimensionId();
         setSeed(dim);
-        return new GenericChunkProvider(worldObj, seed);
+        chunkProvider = new GenericChunkProvider(worldObj, seed);
+        return chunkProvider;
+    }
+
+    // Only valid on the server after the world has created its chunk generator.
+    public GenericChunkProvider getGenericChunkProvider() {
+        return chunkProvider;
     }
 
     @Override
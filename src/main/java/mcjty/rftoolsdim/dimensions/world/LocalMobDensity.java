@@ -0,0 +1,150 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import mcjty.rftoolsdim.config.MobConfiguration;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.monster.IMob;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.ClassInheritanceMultiMap;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limits the hostile mobs of a mob dimlet dimension around every player (see
+ * MobConfiguration.localDensityRadius). Every hostile extra mob gets a local limit that is a
+ * percentage of its maxLoaded value and all hostile mobs together are limited to the sum of these.
+ * The class indices are the same as the indices of the extra mobs of the dimension.
+ *
+ * The mobs around a player are counted at most once per tick. Hostile mobs that are added to the
+ * world later in the same tick are added to these counts (see onMobAdded()) so a spawn pass can't
+ * go over the limit. A spawn is refused if any player that has the spawn position in range is
+ * over the limit.
+ * Only used from the server thread.
+ */
+public class LocalMobDensity {
+    private final WorldServer world;
+    private final int radius;
+    private final Class<?>[] classes;
+    private final int[] localMax;
+    private final int totalMax;
+
+    private final Map<Class<?>, int[]> indicesPerClass = new HashMap<>();
+
+    private long countTime = -1;
+    private final Map<EntityPlayer, int[]> countsPerPlayer = new IdentityHashMap<>();
+
+    public LocalMobDensity(WorldServer world, int radius, List<Class<?>> classes, List<Integer> maxLoaded) {
+        this.world = world;
+        this.radius = radius;
+        this.classes = classes.toArray(new Class<?>[classes.size()]);
+        this.localMax = new int[this.classes.length];
+        int total = 0;
+        for (int i = 0 ; i < localMax.length ; i++) {
+            localMax[i] = Math.max(1, maxLoaded.get(i) * MobConfiguration.localDensityPercentage / 100);
+            if (IMob.class.isAssignableFrom(this.classes[i])) {
+                total += localMax[i];
+            }
+        }
+        this.totalMax = total;
+    }
+
+    // False if the dimension has no hostile extra mobs so there is nothing to limit.
+    public boolean hasHostiles() {
+        return totalMax > 0;
+    }
+
+    /**
+     * True if a new hostile mob (of the given class index or any hostile mob if index is -1)
+     * should not spawn at this position.
+     */
+    public boolean isTooDense(BlockPos pos, int index) {
+        if (world.getTotalWorldTime() != countTime) {
+            countTime = world.getTotalWorldTime();
+            countsPerPlayer.clear();
+        }
+        int cx = pos.getX() >> 4;
+        int cz = pos.getZ() >> 4;
+        for (EntityPlayer player : world.playerEntities) {
+            int pcx = MathHelper.floor_double(player.posX) >> 4;
+            int pcz = MathHelper.floor_double(player.posZ) >> 4;
+            if (Math.abs(pcx - cx) > radius || Math.abs(pcz - cz) > radius) {
+                continue;
+            }
+            int[] counts = countsPerPlayer.get(player);
+            if (counts == null) {
+                counts = count(pcx, pcz);
+                countsPerPlayer.put(player, counts);
+            }
+            if (index == -1 ? counts[classes.length] >= totalMax : counts[index] >= localMax[index]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a hostile mob that was just added to the world to the counts of this tick.
+     */
+    public void onMobAdded(Entity entity) {
+        if (world.getTotalWorldTime() != countTime || countsPerPlayer.isEmpty()) {
+            // The next query counts it.
+            return;
+        }
+        int cx = MathHelper.floor_double(entity.posX) >> 4;
+        int cz = MathHelper.floor_double(entity.posZ) >> 4;
+        for (Map.Entry<EntityPlayer, int[]> entry : countsPerPlayer.entrySet()) {
+            EntityPlayer player = entry.getKey();
+            int pcx = MathHelper.floor_double(player.posX) >> 4;
+            int pcz = MathHelper.floor_double(player.posZ) >> 4;
+            if (Math.abs(pcx - cx) > radius || Math.abs(pcz - cz) > radius) {
+                continue;
+            }
+            int[] counts = entry.getValue();
+            counts[classes.length]++;
+            for (int index : getIndices(entity.getClass())) {
+                counts[index]++;
+            }
+        }
+    }
+
+    // Count the mobs per class index and (in the last slot) all hostile mobs in range of a chunk.
+    private int[] count(int centerX, int centerZ) {
+        int[] counts = new int[classes.length + 1];
+        ChunkProviderServer providerServer = world.theChunkProviderServer;
+        for (int cx = centerX - radius ; cx <= centerX + radius ; cx++) {
+            for (int cz = centerZ - radius ; cz <= centerZ + radius ; cz++) {
+                if (!providerServer.chunkExists(cx, cz)) {
+                    continue;
+                }
+                Chunk chunk = providerServer.provideChunk(cx, cz);
+                for (ClassInheritanceMultiMap<Entity> entityList : chunk.getEntityLists()) {
+                    for (Entity entity : entityList) {
+                        if (entity instanceof IMob) {
+                            counts[classes.length]++;
+                            for (int index : getIndices(entity.getClass())) {
+                                counts[index]++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    private int[] getIndices(Class<?> entityClass) {
+        int[] indices = indicesPerClass.get(entityClass);
+        if (indices == null) {
+            indices = EntityClassCounter.findIndices(classes, entityClass);
+            indicesPerClass.put(entityClass, indices);
+        }
+        return indices;
+    }
+}
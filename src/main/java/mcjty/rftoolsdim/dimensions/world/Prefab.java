@@ -0,0 +1,66 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import net.minecraft.block.state.IBlockState;
+
+/**
+ * A small structure (dungeon, platform, ...) stored as a packed array of palette indices.
+ * The palette is given when the prefab is stamped so the same prefab can be used with
+ * different blocks. Palette index 0 means that the block is left alone.
+ */
+public class Prefab {
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final byte[] blocks;
+    // If true blocks are only placed where there is air now.
+    private final boolean airOnly;
+
+    public Prefab(int sizeX, int sizeY, int sizeZ, boolean airOnly) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.airOnly = airOnly;
+        this.blocks = new byte[sizeX * sizeY * sizeZ];
+    }
+
+    private int index(int x, int y, int z) {
+        return (x * sizeZ + z) * sizeY + y;
+    }
+
+    public Prefab set(int x, int y, int z, int paletteIndex) {
+        blocks[index(x, y, z)] = (byte) paletteIndex;
+        return this;
+    }
+
+    /**
+     * Stamp the prefab with its minimum corner at x, y, z.
+     */
+    public void stamp(ChunkBlockWriter writer, int x, int y, int z, IBlockState[] palette) {
+        stamp(writer, x, y, z, palette, 0, sizeX - 1, 0, sizeZ - 1);
+    }
+
+    /**
+     * Stamp only the part of the prefab that is in the given chunk.
+     */
+    public void stampInChunk(ChunkBlockWriter writer, int x, int y, int z, IBlockState[] palette, int chunkX, int chunkZ) {
+        int minx = Math.max(0, chunkX * 16 - x);
+        int maxx = Math.min(sizeX - 1, chunkX * 16 + 15 - x);
+        int minz = Math.max(0, chunkZ * 16 - z);
+        int maxz = Math.min(sizeZ - 1, chunkZ * 16 + 15 - z);
+        stamp(writer, x, y, z, palette, minx, maxx, minz, maxz);
+    }
+
+    private void stamp(ChunkBlockWriter writer, int x, int y, int z, IBlockState[] palette, int minx, int maxx, int minz, int maxz) {
+        for (int dx = minx ; dx <= maxx ; dx++) {
+            for (int dz = minz ; dz <= maxz ; dz++) {
+                int index = index(dx, 0, dz);
+                for (int dy = 0 ; dy < sizeY ; dy++) {
+                    int b = blocks[index + dy];
+                    if (b != 0 && (!airOnly || writer.isAirBlock(x + dx, y + dy, z + dz))) {
+                        writer.setBlockState(x + dx, y + dy, z + dz, palette[b]);
+                    }
+                }
+            }
+        }
+    }
+}
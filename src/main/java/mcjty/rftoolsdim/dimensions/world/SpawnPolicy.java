@@ -0,0 +1,69 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import mcjty.rftoolsdim.config.GeneralConfiguration;
+import mcjty.rftoolsdim.config.PowerConfiguration;
+import mcjty.rftoolsdim.dimensions.DimensionInformation;
+import mcjty.rftoolsdim.dimensions.types.EffectType;
+
+/**
+ * The spawn rules of a dimension as used by the spawn events. These are compiled once from the
+ * dimension information (see GenericWorldProvider.getSpawnPolicy()) so that the events don't
+ * have to look up the dimension information and check its effects for every spawn.
+ */
+public class SpawnPolicy {
+
+    // Used if there is no dimension information: nothing is changed.
+    public static final SpawnPolicy DEFAULT = new SpawnPolicy(false, false, false, false, 1.0);
+
+    private final boolean peaceful;
+    private final boolean noAnimals;
+    private final boolean preventUnpowered;
+    private final boolean changeHealth;
+    private final double healthFactor;
+
+    private SpawnPolicy(boolean peaceful, boolean noAnimals, boolean preventUnpowered, boolean changeHealth, double healthFactor) {
+        this.peaceful = peaceful;
+        this.noAnimals = noAnimals;
+        this.preventUnpowered = preventUnpowered;
+        this.changeHealth = changeHealth;
+        this.healthFactor = healthFactor;
+    }
+
+    public static SpawnPolicy compile(DimensionInformation information) {
+        if (information == null) {
+            return DEFAULT;
+        }
+        boolean changeHealth = false;
+        double healthFactor = 1.0;
+        if (information.hasEffectType(EffectType.EFFECT_BRUTALMOBS)) {
+            changeHealth = true;
+            healthFactor = GeneralConfiguration.brutalMobsFactor;
+        } else if (information.hasEffectType(EffectType.EFFECT_STRONGMOBS)) {
+            changeHealth = true;
+            healthFactor = GeneralConfiguration.strongMobsFactor;
+        }
+        return new SpawnPolicy(information.isPeaceful(), information.isNoanimals(), PowerConfiguration.preventSpawnUnpowered, changeHealth, healthFactor);
+    }
+
+    public boolean isPeaceful() {
+        return peaceful;
+    }
+
+    public boolean isNoAnimals() {
+        return noAnimals;
+    }
+
+    // If true nothing can spawn while the dimension has no power.
+    public boolean isPreventUnpowered() {
+        return preventUnpowered;
+    }
+
+    // If true the maximum health of spawned mobs is multiplied with getHealthFactor() (strong and brutal mobs).
+    public boolean isChangeHealth() {
+        return changeHealth;
+    }
+
+    public double getHealthFactor() {
+        return healthFactor;
+    }
+}
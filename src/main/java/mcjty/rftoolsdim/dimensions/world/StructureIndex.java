@@ -0,0 +1,89 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.gen.structure.MapGenStructure;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+import net.minecraft.world.gen.structure.StructureComponent;
+import net.minecraft.world.gen.structure.StructureStart;
+
+import java.util.*;
+
+/**
+ * A spatial index on the structure starts of a vanilla structure generator. The vanilla
+ * position checks (used for spawning) go over all structure starts that the generator ever
+ * made. This index maps every chunk to the starts with a bounding box that covers it.
+ *
+ * New starts are picked up when the generator has more starts than the index (the generator
+ * only ever adds starts). The structure data of the world is loaded by the generator as soon as
+ * it generates or recreates a chunk so that always happened before something can spawn.
+ * Only used from the server thread.
+ */
+public class StructureIndex {
+    private final MapGenStructure structure;
+
+    private final Map<Long, List<StructureStart>> startsPerChunk = new HashMap<>();
+    private final Set<StructureStart> indexed = Collections.newSetFromMap(new IdentityHashMap<StructureStart, Boolean>());
+
+    public StructureIndex(MapGenStructure structure) {
+        this.structure = structure;
+    }
+
+    private void update() {
+        if (structure.structureMap.size() == indexed.size()) {
+            return;
+        }
+        for (Object o : structure.structureMap.values()) {
+            StructureStart start = (StructureStart) o;
+            if (indexed.add(start)) {
+                StructureBoundingBox box = start.getBoundingBox();
+                for (int cx = box.minX >> 4 ; cx <= box.maxX >> 4 ; cx++) {
+                    for (int cz = box.minZ >> 4 ; cz <= box.maxZ >> 4 ; cz++) {
+                        long key = ChunkCoordIntPair.chunkXZ2Int(cx, cz);
+                        List<StructureStart> starts = startsPerChunk.get(key);
+                        if (starts == null) {
+                            starts = new ArrayList<>(1);
+                            startsPerChunk.put(key, starts);
+                        }
+                        starts.add(start);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<StructureStart> getStarts(BlockPos pos) {
+        update();
+        List<StructureStart> starts = startsPerChunk.get(ChunkCoordIntPair.chunkXZ2Int(pos.getX() >> 4, pos.getZ() >> 4));
+        return starts == null ? Collections.<StructureStart>emptyList() : starts;
+    }
+
+    /**
+     * The structure start that has a component containing this position (like
+     * MapGenStructure.func_175797_c) or null if there is none.
+     */
+    public StructureStart getStructureAt(BlockPos pos) {
+        for (StructureStart start : getStarts(pos)) {
+            if (start.isSizeableStructure() && start.getBoundingBox().isVecInside(pos)) {
+                for (StructureComponent component : start.getComponents()) {
+                    if (component.getBoundingBox().isVecInside(pos)) {
+                        return start;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * True if the position is inside the bounding box of a structure (like MapGenStructure.isPositionInStructure).
+     */
+    public boolean isPositionInStructure(BlockPos pos) {
+        for (StructureStart start : getStarts(pos)) {
+            if (start.isSizeableStructure() && start.getBoundingBox().isVecInside(pos)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
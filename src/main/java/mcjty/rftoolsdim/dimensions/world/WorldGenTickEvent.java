@@ -0,0 +1,34 @@
+package mcjty.rftoolsdim.dimensions.world;
+
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+/**
+ * Tick handling for the world generation of RFTools dimensions.
+ */
+public class WorldGenTickEvent {
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent evt) {
+        if (evt.phase != TickEvent.Phase.START) {
+            return;
+        }
+        ChunkPregenerator.tick();
+    }
+
+    @SubscribeEvent
+    public void onWorldTick(TickEvent.WorldTickEvent evt) {
+        if (evt.phase != TickEvent.Phase.START || evt.world.isRemote) {
+            return;
+        }
+        if (!(evt.world.provider instanceof GenericWorldProvider)) {
+            return;
+        }
+        GenericChunkProvider chunkProvider = ((GenericWorldProvider) evt.world.provider).getGenericChunkProvider();
+        if (chunkProvider == null) {
+            return;
+        }
+        chunkProvider.getPrimerPipeline().tick((WorldServer) evt.world);
+    }
+}
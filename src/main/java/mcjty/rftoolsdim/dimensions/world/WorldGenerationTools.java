@@ -58,4 +58,12 @@ public class WorldGenerationTools {
             y--;
         }
     }
+
+    // Same as above but through a ChunkBlockWriter.
+    public static void fillEmptyWithStone(ChunkBlockWriter writer, int x, int y, int z) {
+        while (y > 0 && !writer.isSolid(x, y, z)) {
+            writer.setBlockState(x, y, z, Blocks.stone.getDefaultState());
+            y--;
+        }
+    }
 }
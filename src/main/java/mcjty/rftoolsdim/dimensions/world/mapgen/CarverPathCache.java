@@ -0,0 +1,227 @@
+package mcjty.rftoolsdim.dimensions.world.mapgen;
+
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.chunk.ChunkPrimer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The carvers (tendrils, canyons and dense caves) look at all origin chunks in a range of 8 chunks
+ * around the chunk that is generated and walk every tunnel that starts there, only to throw away
+ * everything that is outside the chunk. This cache walks the tunnels of an origin chunk only once
+ * and remembers the steps. Every chunk then only carves the steps that are close enough.
+ *
+ * The result is the same as walking the tunnels for every chunk: the random sequence of a tunnel
+ * doesn't depend on the chunk that is generated. The only thing that does is where a tunnel stops
+ * (too far away from the chunk) and that check is done while carving.
+ * Not thread safe: every carver has its own cache and runs on one thread at a time.
+ */
+public class CarverPathCache {
+    private static final int MAX_ORIGINS = 1024;
+    private static final Tunnel[] NO_TUNNELS = new Tunnel[0];
+    private static final int STEP_SIZE = 6;
+
+    public static class Tunnel {
+        private final boolean room;
+        private final double maxDistance;
+        private final float[] heightScale;
+        private double[] steps = new double[STEP_SIZE * 16];
+        private int stepCount = 0;
+        private Tunnel[] branches = NO_TUNNELS;
+
+        public Tunnel(boolean room, float size, float[] heightScale) {
+            this.room = room;
+            this.maxDistance = (size + 2.0F + 16.0F);
+            this.heightScale = heightScale;
+        }
+
+        public boolean isRoom() {
+            return room;
+        }
+
+        public float[] getHeightScale() {
+            return heightScale;
+        }
+
+        // A step of the tunnel that will be carved (if it is close enough to the chunk).
+        public void addStep(double x, double y, double z, double width, double height, int remaining) {
+            if ((stepCount + 1) * STEP_SIZE > steps.length) {
+                double[] newSteps = new double[steps.length * 2];
+                System.arraycopy(steps, 0, newSteps, 0, steps.length);
+                steps = newSteps;
+            }
+            int o = stepCount * STEP_SIZE;
+            steps[o] = x;
+            steps[o + 1] = y;
+            steps[o + 2] = z;
+            steps[o + 3] = width;
+            steps[o + 4] = height;
+            steps[o + 5] = remaining;
+            stepCount++;
+        }
+
+        // The two tunnels that continue after the last step of this one.
+        public void setBranches(Tunnel branch1, Tunnel branch2) {
+            branches = new Tunnel[] { branch1, branch2 };
+        }
+    }
+
+    public interface OriginWalker {
+        // Add all tunnels that start in this origin chunk. The random is seeded for the origin.
+        void walk(int originX, int originZ, Random random, List<Tunnel> tunnels);
+    }
+
+    public interface StepCarver {
+        // Carve a step of the tunnel in this chunk. Returns true if the tunnel stops here.
+        boolean carve(ChunkPrimer primer, int chunkX, int chunkZ, Tunnel tunnel, double x, double y, double z, double width, double height);
+    }
+
+    private final int range;
+    private final OriginWalker walker;
+    private final Random rand = new Random();
+    private final List<Tunnel> tunnelList = new ArrayList<>();
+
+    private boolean seeded = false;
+    private long worldSeed;
+    private long seedX;
+    private long seedZ;
+
+    private final Map<Long, Tunnel[]> origins = new LinkedHashMap<Long, Tunnel[]>(MAX_ORIGINS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Tunnel[]> eldest) {
+            return size() > MAX_ORIGINS;
+        }
+    };
+
+    public CarverPathCache(int range, OriginWalker walker) {
+        this.range = range;
+        this.walker = walker;
+    }
+
+    public void generate(long seed, int chunkX, int chunkZ, ChunkPrimer primer, StepCarver carver) {
+        if (!seeded || seed != worldSeed) {
+            origins.clear();
+            worldSeed = seed;
+            rand.setSeed(seed);
+            seedX = rand.nextLong();
+            seedZ = rand.nextLong();
+            seeded = true;
+        }
+
+        for (int cx = chunkX - range; cx <= chunkX + range; ++cx) {
+            for (int cz = chunkZ - range; cz <= chunkZ + range; ++cz) {
+                for (Tunnel tunnel : getTunnels(cx, cz)) {
+                    carveTunnel(tunnel, chunkX, chunkZ, primer, carver);
+                }
+            }
+        }
+    }
+
+    private Tunnel[] getTunnels(int originX, int originZ) {
+        long key = ChunkCoordIntPair.chunkXZ2Int(originX, originZ);
+        Tunnel[] tunnels = origins.get(key);
+        if (tunnels == null) {
+            rand.setSeed((originX * seedX) ^ (originZ * seedZ) ^ worldSeed);
+            tunnelList.clear();
+            walker.walk(originX, originZ, rand, tunnelList);
+            tunnels = tunnelList.isEmpty() ? NO_TUNNELS : tunnelList.toArray(new Tunnel[tunnelList.size()]);
+            origins.put(key, tunnels);
+        }
+        return tunnels;
+    }
+
+    private void carveTunnel(Tunnel tunnel, int chunkX, int chunkZ, ChunkPrimer primer, StepCarver carver) {
+        double centerX = (chunkX * 16 + 8);
+        double centerZ = (chunkZ * 16 + 8);
+        double[] steps = tunnel.steps;
+        for (int i = 0 ; i < tunnel.stepCount ; i++) {
+            int o = i * STEP_SIZE;
+            double x = steps[o];
+            double z = steps[o + 2];
+            double width = steps[o + 3];
+            double dx = x - centerX;
+            double dz = z - centerZ;
+            double remaining = steps[o + 5];
+
+            if (dx * dx + dz * dz - remaining * remaining > tunnel.maxDistance * tunnel.maxDistance) {
+                // Too far away from this chunk for the rest of the tunnel (and its branches) to reach it.
+                return;
+            }
+
+            if (x >= centerX - 16.0D - width * 2.0D && z >= centerZ - 16.0D - width * 2.0D && x <= centerX + 16.0D + width * 2.0D && z <= centerZ + 16.0D + width * 2.0D) {
+                if (carver.carve(primer, chunkX, chunkZ, tunnel, x, steps[o + 1], z, width, steps[o + 4])) {
+                    return;
+                }
+            }
+        }
+        for (Tunnel branch : tunnel.branches) {
+            carveTunnel(branch, chunkX, chunkZ, primer, carver);
+        }
+    }
+
+    /**
+     * Walk a cave style tunnel (as used by the tendrils and the dense caves). A step of -1 makes a room.
+     */
+    public static Tunnel walkCaveTunnel(long seed, int range, double x, double y, double z, float size, float yaw, float pitch, int step, int length, double heightFactor) {
+        float f3 = 0.0F;
+        float f4 = 0.0F;
+        Random random = new Random(seed);
+
+        if (length <= 0) {
+            int j1 = range * 16 - 16;
+            length = j1 - random.nextInt(j1 / 4);
+        }
+
+        boolean room = false;
+
+        if (step == -1) {
+            step = length / 2;
+            room = true;
+        }
+
+        int branchStep = random.nextInt(length / 2) + length / 4;
+
+        boolean flag = random.nextInt(6) == 0;
+        Tunnel tunnel = new Tunnel(room, size, null);
+        while (step < length) {
+            double width = 1.5D + (MathHelper.sin(step * (float) Math.PI / length) * size * 1.0F);
+            double height = width * heightFactor;
+            float f5 = MathHelper.cos(pitch);
+            float f6 = MathHelper.sin(pitch);
+            x += (MathHelper.cos(yaw) * f5);
+            y += f6;
+            z += (MathHelper.sin(yaw) * f5);
+
+            if (flag) {
+                pitch *= 0.92F;
+            } else {
+                pitch *= 0.7F;
+            }
+
+            pitch += f4 * 0.1F;
+            yaw += f3 * 0.1F;
+            f4 *= 0.9F;
+            f3 *= 0.75F;
+            f4 += (random.nextFloat() - random.nextFloat()) * random.nextFloat() * 2.0F;
+            f3 += (random.nextFloat() - random.nextFloat()) * random.nextFloat() * 4.0F;
+
+            if (!room && step == branchStep && size > 1.0F && length > 0) {
+                Tunnel branch1 = walkCaveTunnel(random.nextLong(), range, x, y, z, random.nextFloat() * 0.5F + 0.5F, yaw - ((float) Math.PI / 2F), pitch / 3.0F, step, length, 1.0D);
+                Tunnel branch2 = walkCaveTunnel(random.nextLong(), range, x, y, z, random.nextFloat() * 0.5F + 0.5F, yaw + ((float) Math.PI / 2F), pitch / 3.0F, step, length, 1.0D);
+                tunnel.setBranches(branch1, branch2);
+                return tunnel;
+            }
+
+            if (room || random.nextInt(4) != 0) {
+                tunnel.addStep(x, y, z, width, height, length - step);
+            }
+            ++step;
+        }
+        return tunnel;
+    }
+}
@@ -0,0 +1,117 @@
+package mcjty.rftoolsdim.dimensions.world.mapgen;
+
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.chunk.ChunkPrimer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Places ores directly in the ChunkPrimer instead of during population (see
+ * WorldgenConfiguration.oregenInPrimer). The ores of a dimension are compiled once into a
+ * plan with the block state ids. The veins are the same shape as the ones of WorldGenMinable
+ * but are centered in the chunk and clipped to it.
+ */
+public class MapGenOres {
+
+    private static class OreEntry {
+        private final char ore;
+        private final char target;
+        private final int minVeinSize;
+        private final int maxVeinSize;
+        private final int chancesToSpawn;
+        private final int minY;
+        private final int maxY;
+
+        private OreEntry(IBlockState ore, IBlockState target, int minVeinSize, int maxVeinSize, int chancesToSpawn, int minY, int maxY) {
+            this.ore = (char) Block.BLOCK_STATE_IDS.get(ore);
+            this.target = (char) Block.BLOCK_STATE_IDS.get(target);
+            this.minVeinSize = minVeinSize;
+            this.maxVeinSize = maxVeinSize;
+            this.chancesToSpawn = chancesToSpawn;
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+    }
+
+    private final long seed;
+    private final List<OreEntry> plan = new ArrayList<>();
+
+    public MapGenOres(long seed) {
+        this.seed = seed;
+    }
+
+    public void addOre(IBlockState ore, IBlockState target, int minVeinSize, int maxVeinSize, int chancesToSpawn, int minY, int maxY) {
+        if (ore == null || target == null || maxY <= minY) {
+            return;
+        }
+        plan.add(new OreEntry(ore, target, minVeinSize, maxVeinSize, chancesToSpawn, minY, maxY));
+    }
+
+    public void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
+        Random random = context.getScratchRandom((chunkX * 341873128712L + chunkZ * 132897987541L) ^ seed ^ 0x6f726573L);
+        for (OreEntry entry : plan) {
+            // Same vein size as GenericWorldGenerator.addOreSpawn().
+            int veinSize = entry.maxVeinSize > entry.minVeinSize ? entry.minVeinSize - random.nextInt(entry.maxVeinSize - entry.minVeinSize) : entry.minVeinSize;
+            if (veinSize <= 0) {
+                continue;
+            }
+            for (int i = 0 ; i < entry.chancesToSpawn ; i++) {
+                int x = random.nextInt(16);
+                int y = entry.minY + random.nextInt(entry.maxY - entry.minY);
+                int z = random.nextInt(16);
+                generateVein(primer, random, entry, veinSize, x, y, z);
+            }
+        }
+    }
+
+    // WorldGenMinable.generate() in chunk coordinates.
+    private static void generateVein(ChunkPrimer primer, Random random, OreEntry entry, int size, int x, int y, int z) {
+        float f = random.nextFloat() * (float) Math.PI;
+        double d0 = x + MathHelper.sin(f) * size / 8.0F;
+        double d1 = x - MathHelper.sin(f) * size / 8.0F;
+        double d2 = z + MathHelper.cos(f) * size / 8.0F;
+        double d3 = z - MathHelper.cos(f) * size / 8.0F;
+        double d4 = (y + random.nextInt(3) - 2);
+        double d5 = (y + random.nextInt(3) - 2);
+        char[] data = primer.data;
+
+        for (int i = 0 ; i < size ; ++i) {
+            float f1 = (float) i / (float) size;
+            double d6 = d0 + (d1 - d0) * f1;
+            double d7 = d4 + (d5 - d4) * f1;
+            double d8 = d2 + (d3 - d2) * f1;
+            double d9 = random.nextDouble() * size / 16.0D;
+            double d10 = (MathHelper.sin((float) Math.PI * f1) + 1.0F) * d9 + 1.0D;
+            double d11 = (MathHelper.sin((float) Math.PI * f1) + 1.0F) * d9 + 1.0D;
+            int minx = Math.max(0, MathHelper.floor_double(d6 - d10 / 2.0D));
+            int miny = Math.max(0, MathHelper.floor_double(d7 - d11 / 2.0D));
+            int minz = Math.max(0, MathHelper.floor_double(d8 - d10 / 2.0D));
+            int maxx = Math.min(15, MathHelper.floor_double(d6 + d10 / 2.0D));
+            int maxy = Math.min(255, MathHelper.floor_double(d7 + d11 / 2.0D));
+            int maxz = Math.min(15, MathHelper.floor_double(d8 + d10 / 2.0D));
+
+            for (int xx = minx ; xx <= maxx ; ++xx) {
+                double d12 = (xx + 0.5D - d6) / (d10 / 2.0D);
+                if (d12 * d12 < 1.0D) {
+                    for (int yy = miny ; yy <= maxy ; ++yy) {
+                        double d13 = (yy + 0.5D - d7) / (d11 / 2.0D);
+                        if (d12 * d12 + d13 * d13 < 1.0D) {
+                            for (int zz = minz ; zz <= maxz ; ++zz) {
+                                double d14 = (zz + 0.5D - d8) / (d10 / 2.0D);
+                                int index = (xx * 16 + zz) * 256 + yy;
+                                if (d12 * d12 + d13 * d13 + d14 * d14 < 1.0D && data[index] == entry.target) {
+                                    data[index] = entry.ore;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package mcjty.rftoolsdim.dimensions.world.mapgen;
 
 import mcjty.lib.varia.BlockMeta;
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import mcjty.rftoolsdim.dimensions.world.GenericChunkProvider;
 import net.minecraft.block.Block;
 import net.minecraft.block.material.Material;
@@ -18,10 +19,10 @@ public class MapGenPyramids {
         this.provider = provider;
     }
 
-    public void generate(World world, int chunkX, int chunkZ, ChunkPrimer primer) {
+    public void generate(World world, int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
         IBlockState[] blocks = provider.dimensionInformation.getPyramidBlocks();
 
-        Random random = new Random((world.getSeed() + (chunkX)) * 1133 + (chunkZ) * 37 + 77);
+        Random random = context.getScratchRandom((world.getSeed() + (chunkX)) * 1133 + (chunkZ) * 37 + 77);
         random.nextFloat();
 
         if (random.nextFloat() < .05f) {
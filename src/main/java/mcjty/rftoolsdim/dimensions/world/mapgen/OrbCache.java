@@ -0,0 +1,119 @@
+package mcjty.rftoolsdim.dimensions.world.mapgen;
+
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkPrimer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers which chunks start an orb (for MapGenOrbs and MapGenLiquidOrbs) so that the orbs
+ * are only computed once per region of 8x8 chunks instead of again for every neighbouring chunk.
+ * Only used from the primer stage so it doesn't need to be thread safe.
+ */
+public class OrbCache {
+    private static final int REGION_SHIFT = 3;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int MAX_REGIONS = 64;
+
+    public static class Orb {
+        // Absolute block coordinates of the center.
+        private final int x;
+        private final int y;
+        private final int z;
+        private final int radius;
+        private final IBlockState block;
+        private final IBlockState fluid;   // null for solid orbs
+
+        public Orb(int x, int y, int z, int radius, IBlockState block, IBlockState fluid) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.radius = radius;
+            this.block = block;
+            this.fluid = fluid;
+        }
+    }
+
+    public interface OrbFactory {
+        // Returns the orb that starts in this chunk or null if there is none.
+        Orb create(World world, int chunkX, int chunkZ, GenerationContext context);
+    }
+
+    private final OrbFactory factory;
+    private final Map<Long, Orb[]> regions = new LinkedHashMap<Long, Orb[]>(MAX_REGIONS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Orb[]> eldest) {
+            return size() > MAX_REGIONS;
+        }
+    };
+
+    public OrbCache(OrbFactory factory) {
+        this.factory = factory;
+    }
+
+    public Orb getOrb(World world, int chunkX, int chunkZ, GenerationContext context) {
+        int regionX = chunkX >> REGION_SHIFT;
+        int regionZ = chunkZ >> REGION_SHIFT;
+        long key = ChunkCoordIntPair.chunkXZ2Int(regionX, regionZ);
+        Orb[] orbs = regions.get(key);
+        if (orbs == null) {
+            orbs = new Orb[REGION_SIZE * REGION_SIZE];
+            for (int dx = 0 ; dx < REGION_SIZE ; dx++) {
+                for (int dz = 0 ; dz < REGION_SIZE ; dz++) {
+                    orbs[dx * REGION_SIZE + dz] = factory.create(world, (regionX << REGION_SHIFT) + dx, (regionZ << REGION_SHIFT) + dz, context);
+                }
+            }
+            regions.put(key, orbs);
+        }
+        return orbs[(chunkX & (REGION_SIZE - 1)) * REGION_SIZE + (chunkZ & (REGION_SIZE - 1))];
+    }
+
+    /**
+     * Place the part of the orb that is inside this chunk. Only the columns inside the bounding
+     * box of the orb are visited. Fluid orbs have a shell of 1.5 blocks.
+     */
+    public static void fillSphere(ChunkPrimer primer, int chunkX, int chunkZ, Orb orb) {
+        int centerx = orb.x - chunkX * 16;
+        int centerz = orb.z - chunkZ * 16;
+        int radius = orb.radius;
+        int minx = Math.max(0, centerx - radius);
+        int maxx = Math.min(15, centerx + radius);
+        int minz = Math.max(0, centerz - radius);
+        int maxz = Math.min(15, centerz + radius);
+        if (minx > maxx || minz > maxz) {
+            return;
+        }
+
+        int sqradius = radius * radius;
+        double liquidradius = (radius - 1.5) * (radius - 1.5);
+
+        for (int x = minx ; x <= maxx ; x++) {
+            int dxdx = (x - centerx) * (x - centerx);
+            for (int z = minz ; z <= maxz ; z++) {
+                int dxdz = dxdx + (z - centerz) * (z - centerz);
+                if (dxdz > sqradius) {
+                    continue;
+                }
+                int dy = (int) Math.sqrt(sqradius - dxdz);
+                while (dy * dy > sqradius - dxdz) {
+                    dy--;
+                }
+                int index = (x * 16 + z) * 256;
+                int miny = Math.max(0, orb.y - dy);
+                int maxy = Math.min(255, orb.y + dy);
+                for (int y = miny ; y <= maxy ; y++) {
+                    int sqdist = dxdz + (y - orb.y) * (y - orb.y);
+                    if (orb.fluid != null && sqdist < liquidradius) {
+                        primer.setBlockState(index + y, orb.fluid);
+                    } else {
+                        primer.setBlockState(index + y, orb.block);
+                    }
+                }
+            }
+        }
+    }
+}
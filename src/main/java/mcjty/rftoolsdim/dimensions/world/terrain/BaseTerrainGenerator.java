@@ -1,5 +1,6 @@
 package mcjty.rftoolsdim.dimensions.world.terrain;
 
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import mcjty.rftoolsdim.dimensions.world.GenericChunkProvider;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.BiomeGenBase;
@@ -11,7 +12,19 @@ import net.minecraft.world.chunk.ChunkPrimer;
 public interface BaseTerrainGenerator {
     void setup(World world, GenericChunkProvider provider);
 
-    void generate(int chunkX, int chunkZ, ChunkPrimer chunkPrimer);
+    void generate(int chunkX, int chunkZ, ChunkPrimer chunkPrimer, GenerationContext context);
 
-    void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer chunkPrimer, BiomeGenBase[] biomeGenBases);
+    void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer chunkPrimer, BiomeGenBase[] biomeGenBases, GenerationContext context);
+
+    /**
+     * True if generate() may run on a primer worker (see ChunkPrimerPipeline): it posts no Forge
+     * events and only uses its own state and the context.
+     */
+    boolean canGenerateOffThread();
+
+    /**
+     * True if replaceBlocksForBiome() may run on a primer worker: it posts no Forge events and
+     * doesn't call into biome code.
+     */
+    boolean canReplaceBlocksOffThread();
 }
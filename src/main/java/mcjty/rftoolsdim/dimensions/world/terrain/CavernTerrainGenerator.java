@@ -2,6 +2,7 @@ package mcjty.rftoolsdim.dimensions.world.terrain;
 
 import mcjty.rftoolsdim.config.WorldgenConfiguration;
 import mcjty.rftoolsdim.dimensions.types.TerrainType;
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import mcjty.rftoolsdim.dimensions.world.GenericChunkProvider;
 import net.minecraft.block.Block;
 import net.minecraft.block.material.Material;
@@ -45,8 +46,6 @@ public class CavernTerrainGenerator implements BaseTerrainGenerator {
     private double[] noiseData1;
     private double[] noiseData2;
     private double[] noiseData3;
-    private double[] noiseData4;
-    private double[] noiseData5;
 
     public CavernTerrainGenerator(CavernHeight heightsetting) {
         if (heightsetting == null) {
@@ -90,7 +89,7 @@ public class CavernTerrainGenerator implements BaseTerrainGenerator {
      * generates a subset of the level's terrain data. Takes 7 arguments: the [empty] noise array, the position, and the
      * size.
      */
-    private double[] initializeNoiseField(double[] noiseField, int x, int y, int z, int sx, int sy, int sz) {
+    private double[] initializeNoiseField(double[] noiseField, int x, int y, int z, int sx, int sy, int sz, GenerationContext context) {
         ChunkProviderEvent.InitNoiseField event = new ChunkProviderEvent.InitNoiseField(provider, noiseField, x, y, z, sx, sy, sz);
         MinecraftForge.EVENT_BUS.post(event);
         if (event.getResult() == Event.Result.DENY) {
@@ -105,13 +104,11 @@ public class CavernTerrainGenerator implements BaseTerrainGenerator {
 
         double d0 = 684.412D;
         double d1 = 2053.236D;
-        this.noiseData4 = this.netherNoiseGen6.generateNoiseOctaves(this.noiseData4, x, y, z, sx, 1, sz, 1.0D, 0.0D, 1.0D);
-        this.noiseData5 = this.netherNoiseGen7.generateNoiseOctaves(this.noiseData5, x, y, z, sx, 1, sz, 100.0D, 0.0D, 100.0D);
         this.noiseData1 = this.netherNoiseGen3.generateNoiseOctaves(this.noiseData1, x, y, z, sx, sy, sz, d0 / 80.0D, d1 / 60.0D, d0 / 80.0D);
         this.noiseData2 = this.netherNoiseGen1.generateNoiseOctaves(this.noiseData2, x, y, z, sx, sy, sz, d0, d1, d0);
         this.noiseData3 = this.netherNoiseGen2.generateNoiseOctaves(this.noiseData3, x, y, z, sx, sy, sz, d0, d1, d0);
         int k1 = 0;
-        double[] adouble1 = new double[sy];
+        double[] adouble1 = context.getNoiseBuffer(sy);
         int i2;
 
         for (i2 = 0; i2 < sy; ++i2) {
@@ -181,7 +178,7 @@ public class CavernTerrainGenerator implements BaseTerrainGenerator {
     }
 
     @Override
-    public void generate(int chunkX, int chunkZ, ChunkPrimer primer) {
+    public void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
         IBlockState baseBlock = provider.dimensionInformation.getBaseBlockForTerrain();
         Block baseLiquid = provider.dimensionInformation.getFluidForTerrain();
 
@@ -193,7 +190,7 @@ public class CavernTerrainGenerator implements BaseTerrainGenerator {
         int k = b0 + 1;
         byte b2 = 33;
         int l = b0 + 1;
-        this.noiseField = this.initializeNoiseField(this.noiseField, chunkX * b0, 0, chunkZ * b0, k, b2, l);
+        this.noiseField = this.initializeNoiseField(this.noiseField, chunkX * b0, 0, chunkZ * b0, k, b2, l, context);
 
         for (int x4 = 0; x4 < b0; ++x4) {
             for (int z4 = 0; z4 < b0; ++z4) {
@@ -257,7 +254,17 @@ public class CavernTerrainGenerator implements BaseTerrainGenerator {
 
 
     @Override
-    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases) {
+    public boolean canGenerateOffThread() {
+        return false;
+    }
+
+    @Override
+    public boolean canReplaceBlocksOffThread() {
+        return false;
+    }
+
+    @Override
+    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases, GenerationContext context) {
         ChunkProviderEvent.ReplaceBiomeBlocks event = new ChunkProviderEvent.ReplaceBiomeBlocks(provider, chunkX, chunkZ, primer, world);
         MinecraftForge.EVENT_BUS.post(event);
         if (event.getResult() == Event.Result.DENY) {
@@ -273,7 +280,7 @@ public class CavernTerrainGenerator implements BaseTerrainGenerator {
 
         for (int k = 0; k < 16; ++k) {
             for (int l = 0; l < 16; ++l) {
-                int i1 = (int)(this.baseBlockExclusivityNoise[k + l * 16] / 3.0D + 3.0D + provider.rand.nextDouble() * 0.25D);
+                int i1 = (int)(this.baseBlockExclusivityNoise[k + l * 16] / 3.0D + 3.0D + context.getRandom().nextDouble() * 0.25D);
                 int j1 = -1;
                 IBlockState block = baseBlock;
 
@@ -282,7 +289,7 @@ public class CavernTerrainGenerator implements BaseTerrainGenerator {
 
                     if (k1 < WorldgenConfiguration.bedrockLayer) {
                         primer.setBlockState(l1, Blocks.bedrock.getDefaultState());
-                    } else if (k1 < 255 - provider.rand.nextInt(5) && k1 > provider.rand.nextInt(5)) {
+                    } else if (k1 < 255 - context.getRandom().nextInt(5) && k1 > context.getRandom().nextInt(5)) {
                         IBlockState block2 = primer.getBlockState(l1);
 
                         if (block2 != null && block2.getBlock().getMaterial() != Material.air) {
@@ -0,0 +1,72 @@
+package mcjty.rftoolsdim.dimensions.world.terrain;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.world.chunk.ChunkPrimer;
+
+/**
+ * A precomputed column of blocks for the simple terrain types that can be copied into a
+ * ChunkPrimer in one go. Only the part up to the highest non-air block is stored and copied:
+ * the primer of a GenerationContext is always cleared to air so there is no need to write air.
+ */
+public class ColumnTemplate {
+    private final char[] data;
+
+    /**
+     * Create a template from a column of states. Null means air.
+     */
+    public ColumnTemplate(IBlockState[] states) {
+        int top = states.length;
+        while (top > 0 && (states[top - 1] == null || Block.BLOCK_STATE_IDS.get(states[top - 1]) == 0)) {
+            top--;
+        }
+        data = new char[top];
+        for (int y = 0 ; y < top ; y++) {
+            data[y] = states[y] == null ? 0 : (char) Block.BLOCK_STATE_IDS.get(states[y]);
+        }
+    }
+
+    /**
+     * The common layered column: bedrock below bedrockTop, then the base block below baseTop,
+     * then the fluid below fluidTop (if fluid is not null) and air above that.
+     */
+    public static ColumnTemplate layered(IBlockState bedrock, int bedrockTop, IBlockState base, int baseTop, IBlockState fluid, int fluidTop) {
+        IBlockState[] states = new IBlockState[256];
+        bedrockTop = Math.min(bedrockTop, 256);
+        baseTop = Math.min(baseTop, 256);
+        fluidTop = Math.min(fluidTop, 256);
+        int height = 0;
+        while (height < bedrockTop) {
+            states[height++] = bedrock;
+        }
+        while (height < baseTop) {
+            states[height++] = base;
+        }
+        if (fluid != null) {
+            while (height < fluidTop) {
+                states[height++] = fluid;
+            }
+        }
+        return new ColumnTemplate(states);
+    }
+
+    public int getHeight() {
+        return data.length;
+    }
+
+    public void copyTo(ChunkPrimer primer, int x, int z) {
+        System.arraycopy(data, 0, primer.data, (x * 16 + z) * 256, data.length);
+    }
+
+    /**
+     * Copy this template into every column of the primer.
+     */
+    public void fill(ChunkPrimer primer) {
+        if (data.length == 0) {
+            return;
+        }
+        for (int i = 0 ; i < 256 ; i++) {
+            System.arraycopy(data, 0, primer.data, i * 256, data.length);
+        }
+    }
+}
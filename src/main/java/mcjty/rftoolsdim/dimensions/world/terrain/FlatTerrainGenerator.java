@@ -2,7 +2,7 @@ package mcjty.rftoolsdim.dimensions.world.terrain;
 
 import mcjty.rftoolsdim.config.WorldgenConfiguration;
 import mcjty.rftoolsdim.dimensions.types.FeatureType;
-import net.minecraft.block.state.IBlockState;
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import net.minecraft.init.Blocks;
 import net.minecraft.world.chunk.ChunkPrimer;
 
@@ -10,22 +10,32 @@ import java.util.Random;
 
 public class FlatTerrainGenerator extends NormalTerrainGenerator {
     private final byte height;
+    // Column templates indexed by water level.
+    private final ColumnTemplate[] templates = new ColumnTemplate[256];
 
     public FlatTerrainGenerator(byte height) {
         super();
         this.height = height;
     }
 
-    @Override
-    public void generate(int chunkX, int chunkZ, ChunkPrimer primer) {
-        IBlockState baseBlock = provider.dimensionInformation.getBaseBlockForTerrain();
+    private ColumnTemplate getTemplate(int waterLevel) {
+        waterLevel = Math.max(0, waterLevel);
+        if (templates[waterLevel] == null) {
+            // @todo support 127
+            templates[waterLevel] = ColumnTemplate.layered(Blocks.bedrock.getDefaultState(), WorldgenConfiguration.bedrockLayer,
+                    provider.dimensionInformation.getBaseBlockForTerrain(), waterLevel, null, 0);
+        }
+        return templates[waterLevel];
+    }
 
+    @Override
+    public void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
         byte waterLevel = height;
 
         boolean elevated = false;
         if (provider.dimensionInformation.hasFeatureType(FeatureType.FEATURE_MAZE)) {
             long s2 = ((chunkX + provider.seed + 13) * 314) + chunkZ * 17L;
-            Random rand = new Random(s2);
+            Random rand = context.getScratchRandom(s2);
             rand.nextFloat();   // Skip one.
             elevated = (chunkX & 1) == 0;
             if (rand.nextFloat() < .2f) {
@@ -38,33 +48,6 @@ public class FlatTerrainGenerator extends NormalTerrainGenerator {
             }
         }
 
-        int index = 0;
-        for (int x = 0; x < 16; ++x) {
-            for (int z = 0; z < 16; ++z) {
-                int height = 0;
-                while (height < WorldgenConfiguration.bedrockLayer) {
-                    primer.setBlockState(index++, Blocks.bedrock.getDefaultState());
-                    height++;
-                }
-                // @todo support 127
-//                if (baseMeta == 127) {
-//                    while (height < waterLevel) {
-//                        aBlock[index] = baseBlock;
-//                        abyte[index++] = (byte) ((height/2 + x/2 + z/2) & 0xf);
-//                        height++;
-//                    }
-//                } else {
-                    while (height < waterLevel) {
-                        primer.setBlockState(index++, baseBlock);
-                        height++;
-                    }
-//                }
-                while (height < 256) {
-                    primer.setBlockState(index++, Blocks.air.getDefaultState());
-                    height++;
-                }
-            }
-        }
-
+        getTemplate(waterLevel).fill(primer);
     }
 }
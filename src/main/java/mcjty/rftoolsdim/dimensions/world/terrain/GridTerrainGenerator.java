@@ -1,16 +1,16 @@
 package mcjty.rftoolsdim.dimensions.world.terrain;
 
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import net.minecraft.block.state.IBlockState;
-import net.minecraft.init.Blocks;
 import net.minecraft.world.biome.BiomeGenBase;
 import net.minecraft.world.chunk.ChunkPrimer;
 
 public class GridTerrainGenerator extends NormalTerrainGenerator {
+    private ColumnTemplate pillarTemplate = null;
+    private ColumnTemplate edgeTemplate = null;
 
     @Override
-    public void generate(int chunkX, int chunkZ, ChunkPrimer primer) {
-        IBlockState baseBlock = provider.dimensionInformation.getBaseBlockForTerrain();
-
+    public void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
         int borderx;
         if ((chunkX & 1) == 0) {
             borderx = 0;
@@ -24,47 +24,48 @@ public class GridTerrainGenerator extends NormalTerrainGenerator {
             borderz = 15;
         }
 
-        int index = 0;
+        if (pillarTemplate == null) {
+            createTemplates();
+        }
+
+        // The bedrock doesn't have to be cleared since the primer starts out as air.
         for (int x = 0; x < 16; ++x) {
             for (int z = 0; z < 16; ++z) {
-                // Clear the bedrock
-                for (int y = 0 ; y < 10 ; y++) {
-                    // @todo optimize references to air/defaultstate
-                    primer.setBlockState(index+y, Blocks.air.getDefaultState());
-                }
-
-                boolean filled = (x == borderx) && (z == borderz);
-                if (filled) {
-                    for (int y = 0 ; y < 128 ; y++) {
-                        primer.setBlockState(index++, baseBlock);
-                        // @todo support for 127
-//                        if (baseMeta == 127) {
-//                            realMeta = (byte)(y & 0xf);
-                    }
-                    index += 128;
+                if ((x == borderx) && (z == borderz)) {
+                    pillarTemplate.copyTo(primer, x, z);
                 } else if (x == borderx || z == borderz) {
-                    for (int y = 0 ; y < 128 ; y+=32) {
-                        if (y > 0) {
-                            primer.setBlockState(index-1, baseBlock);
-                            // @todo support for 127
-//                            if (baseMeta == 127) {
-//                                realMeta = (byte)((y/2 + x/2 + z/2) & 0xf);
-                        }
-                        primer.setBlockState(index, baseBlock);
-                        // @todo support for 127
-//                        if (baseMeta == 127) {
-//                            realMeta = (byte)((y/2 + x/2 + z/2) & 0xf);
-                        index += 32;
-                    }
-                    index += 128;
-                } else {
-                    index += 256;
+                    edgeTemplate.copyTo(primer, x, z);
                 }
             }
         }
     }
 
+    private void createTemplates() {
+        IBlockState baseBlock = provider.dimensionInformation.getBaseBlockForTerrain();
+        // @todo support for 127
+
+        IBlockState[] pillar = new IBlockState[256];
+        for (int y = 0 ; y < 128 ; y++) {
+            pillar[y] = baseBlock;
+        }
+        pillarTemplate = new ColumnTemplate(pillar);
+
+        IBlockState[] edge = new IBlockState[256];
+        for (int y = 0 ; y < 128 ; y += 32) {
+            if (y > 0) {
+                edge[y - 1] = baseBlock;
+            }
+            edge[y] = baseBlock;
+        }
+        edgeTemplate = new ColumnTemplate(edge);
+    }
+
+    @Override
+    public boolean canReplaceBlocksOffThread() {
+        return true;
+    }
+
     @Override
-    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases) {
+    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases, GenerationContext context) {
     }
 }
@@ -1,6 +1,7 @@
 package mcjty.rftoolsdim.dimensions.world.terrain;
 
 import mcjty.rftoolsdim.dimensions.types.FeatureType;
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import mcjty.rftoolsdim.dimensions.world.GenericChunkProvider;
 import net.minecraft.block.Block;
 import net.minecraft.block.material.Material;
@@ -35,8 +36,6 @@ public class IslandTerrainGenerator implements BaseTerrainGenerator {
     private double[] noiseData1;
     private double[] noiseData2;
     private double[] noiseData3;
-    private double[] noiseData4;
-    private double[] noiseData5;
 
     public static final int NORMAL = 0;
     public static final int CHAOTIC = 1;
@@ -96,7 +95,7 @@ public class IslandTerrainGenerator implements BaseTerrainGenerator {
      * generates a subset of the level's terrain data. Takes 7 arguments: the [empty] noise array, the position, and the
      * size.
      */
-    private double[] initializeNoiseField(double[] densities, int chunkX2, int chunkY2, int chunkZ2, int sizeX, int sizeY, int sizeZ) {
+    private double[] initializeNoiseField(double[] densities, int chunkX2, int chunkY2, int chunkZ2, int sizeX, int sizeY, int sizeZ, GenerationContext context) {
         ChunkProviderEvent.InitNoiseField event = new ChunkProviderEvent.InitNoiseField(provider, densities, chunkX2, chunkY2, chunkZ2, sizeX, sizeY, sizeZ);
         MinecraftForge.EVENT_BUS.post(event);
         if (event.getResult() == Event.Result.DENY) {
@@ -111,15 +110,13 @@ public class IslandTerrainGenerator implements BaseTerrainGenerator {
 
         double d0 = 684.412D;
         double d1 = 684.412D;
-        this.noiseData4 = this.noiseGen4.generateNoiseOctaves(this.noiseData4, chunkX2, chunkZ2, sizeX, sizeZ, 1.121D, 1.121D, 0.5D);
-        this.noiseData5 = this.noiseGen5.generateNoiseOctaves(this.noiseData5, chunkX2, chunkZ2, sizeX, sizeZ, 200.0D, 200.0D, 0.5D);
         d0 *= 2.0D;
         this.noiseData1 = this.noiseGen3.generateNoiseOctaves(this.noiseData1, chunkX2, chunkY2, chunkZ2, sizeX, sizeY, sizeZ, d0 / 80.0D, d1 / 160.0D, d0 / 80.0D);
         this.noiseData2 = this.noiseGen1.generateNoiseOctaves(this.noiseData2, chunkX2, chunkY2, chunkZ2, sizeX, sizeY, sizeZ, d0, d1, d0);
         this.noiseData3 = this.noiseGen2.generateNoiseOctaves(this.noiseData3, chunkX2, chunkY2, chunkZ2, sizeX, sizeY, sizeZ, d0, d1, d0);
         int k1 = 0;
 
-        Random random = new Random(chunkX2 * 13 + chunkY2 * 157 + chunkZ2 * 13883);
+        Random random = context.getScratchRandom(chunkX2 * 13 + chunkY2 * 157 + chunkZ2 * 13883);
         random.nextFloat();
 
         for (int x = 0; x < sizeX; ++x) {
@@ -207,14 +204,14 @@ public class IslandTerrainGenerator implements BaseTerrainGenerator {
     }
 
     @Override
-    public void generate(int chunkX, int chunkZ, ChunkPrimer primer) {
+    public void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
         IBlockState baseBlock = provider.dimensionInformation.getBaseBlockForTerrain();
 
         byte b0 = 2;
         int k = b0 + 1;
         byte b1 = 33;
         int l = b0 + 1;
-        this.densities = this.initializeNoiseField(this.densities, chunkX * b0, 0, chunkZ * b0, k, b1, l);
+        this.densities = this.initializeNoiseField(this.densities, chunkX * b0, 0, chunkZ * b0, k, b1, l, context);
 
         for (int x2 = 0; x2 < b0; ++x2) {
             for (int z2 = 0; z2 < b0; ++z2) {
@@ -278,7 +275,17 @@ public class IslandTerrainGenerator implements BaseTerrainGenerator {
 
 
     @Override
-    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases) {
+    public boolean canGenerateOffThread() {
+        return false;
+    }
+
+    @Override
+    public boolean canReplaceBlocksOffThread() {
+        return true;
+    }
+
+    @Override
+    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases, GenerationContext context) {
 //        ChunkProviderEvent.ReplaceBiomeBlocks event = new ChunkProviderEvent.ReplaceBiomeBlocks(provider, chunkX, chunkZ, aBlock, abyte, biomeGenBases, world);
 //        MinecraftForge.EVENT_BUS.post(event);
 //        if (event.getResult() == Event.Result.DENY) {
@@ -291,12 +298,12 @@ public class IslandTerrainGenerator implements BaseTerrainGenerator {
         for (int k = 0; k < 16; ++k) {
             for (int l = 0; l < 16; ++l) {
                 BiomeGenBase biomegenbase = biomeGenBases[l + k * 16];
-                genBiomeTerrain(biomegenbase, primer, chunkX * 16 + k, chunkZ * 16 + l, this.stoneNoise[l + k * 16]);
+                genBiomeTerrain(biomegenbase, primer, context.getRandom(), chunkX * 16 + k, chunkZ * 16 + l, this.stoneNoise[l + k * 16]);
             }
         }
     }
 
-    public final void genBiomeTerrain(BiomeGenBase biomegenbase, ChunkPrimer primer, int x, int z, double noise) {
+    public final void genBiomeTerrain(BiomeGenBase biomegenbase, ChunkPrimer primer, Random random, int x, int z, double noise) {
         Block baseLiquid = provider.dimensionInformation.getFluidForTerrain();
         IBlockState baseBlock = provider.dimensionInformation.getBaseBlockForTerrain();
 
@@ -304,7 +311,7 @@ public class IslandTerrainGenerator implements BaseTerrainGenerator {
         IBlockState block1 = biomegenbase.fillerBlock;    //baseBlock
 
         int k = -1;
-        int l = (int)(noise / 3.0D + 3.0D + provider.rand.nextDouble() * 0.25D);
+        int l = (int)(noise / 3.0D + 3.0D + random.nextDouble() * 0.25D);
         int cx = x & 15;
         int cz = z & 15;
 
@@ -368,7 +375,7 @@ public class IslandTerrainGenerator implements BaseTerrainGenerator {
                                 primer.setBlockState(index, block1);
 
                                 if (k == 0 && block1 == Blocks.sand) {
-                                    k = provider.rand.nextInt(4) + Math.max(0, height - 63);
+                                    k = random.nextInt(4) + Math.max(0, height - 63);
                                     block1 = Blocks.sandstone.getDefaultState();
                                 }
                             }
@@ -1,5 +1,6 @@
 package mcjty.rftoolsdim.dimensions.world.terrain;
 
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import mcjty.rftoolsdim.dimensions.world.GenericChunkProvider;
 import net.minecraft.block.Block;
 import net.minecraft.init.Blocks;
@@ -9,6 +10,7 @@ import net.minecraft.world.chunk.ChunkPrimer;
 
 public class LiquidTerrainGenerator implements BaseTerrainGenerator {
     protected GenericChunkProvider provider;
+    private ColumnTemplate template = null;
 
     @Override
     public void setup(World world, GenericChunkProvider provider) {
@@ -16,34 +18,27 @@ public class LiquidTerrainGenerator implements BaseTerrainGenerator {
     }
 
     @Override
-    public void generate(int chunkX, int chunkZ, ChunkPrimer primer) {
-        Block baseLiquid = provider.dimensionInformation.getFluidForTerrain();
-
-        byte waterLevel = 127;
-
-        int index = 0;
-        for (int x = 0; x < 16; ++x) {
-            for (int z = 0; z < 16; ++z) {
-                int height = 0;
-                while (height < 1) {
-                    primer.setBlockState(index++, Blocks.bedrock.getDefaultState());
-                    height++;
-                }
-                while (height < waterLevel) {
-                    primer.setBlockState(index++, baseLiquid.getDefaultState());
-                    height++;
-                }
-                while (height < 256) {
-                    primer.setBlockState(index++, Blocks.air.getDefaultState());
-                    height++;
-                }
-            }
+    public void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
+        if (template == null) {
+            Block baseLiquid = provider.dimensionInformation.getFluidForTerrain();
+            byte waterLevel = 127;
+            template = ColumnTemplate.layered(Blocks.bedrock.getDefaultState(), 1, baseLiquid.getDefaultState(), waterLevel, null, 0);
         }
+        template.fill(primer);
+    }
 
+    @Override
+    public boolean canGenerateOffThread() {
+        return true;
+    }
+
+    @Override
+    public boolean canReplaceBlocksOffThread() {
+        return true;
     }
 
     @Override
-    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases) {
+    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases, GenerationContext context) {
     }
 
 }
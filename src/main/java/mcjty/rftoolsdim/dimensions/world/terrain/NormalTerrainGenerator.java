@@ -3,6 +3,7 @@ package mcjty.rftoolsdim.dimensions.world.terrain;
 import mcjty.lib.varia.Logging;
 import mcjty.rftoolsdim.dimensions.types.FeatureType;
 import mcjty.rftoolsdim.dimensions.types.TerrainType;
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import mcjty.rftoolsdim.dimensions.world.GenericChunkProvider;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
@@ -79,7 +80,7 @@ public class NormalTerrainGenerator implements BaseTerrainGenerator {
         this.noiseGen6 = (NoiseGeneratorOctaves) noiseGens[5];
     }
 
-    private void func_147423_a(int chunkX4, int chunkY4, int chunkZ4) {
+    private void func_147423_a(int chunkX4, int chunkY4, int chunkZ4, GenerationContext context) {
         this.noiseData4 = this.noiseGen6.generateNoiseOctaves(this.noiseData4, chunkX4, chunkZ4, 5, 5, 200.0D, 200.0D, 0.5D);
         this.noiseData1 = this.noiseGen3.generateNoiseOctaves(this.noiseData1, chunkX4, chunkY4, chunkZ4, 5, 33, 5, 8.555150000000001D, 4.277575000000001D, 8.555150000000001D);
         this.noiseData2 = this.noiseGen1.generateNoiseOctaves(this.noiseData2, chunkX4, chunkY4, chunkZ4, 5, 33, 5, 684.412D, 684.412D, 684.412D);
@@ -98,7 +99,7 @@ public class NormalTerrainGenerator implements BaseTerrainGenerator {
         if (provider.dimensionInformation.hasFeatureType(FeatureType.FEATURE_MAZE)) {
             domaze = true;
             long s2 = (((chunkX4 >> 2) + provider.seed + 13) * 314) + (chunkZ4 >> 2) * 17L;
-            Random rand = new Random(s2);
+            Random rand = context.getScratchRandom(s2);
             rand.nextFloat();   // Skip one.
             elevated = ((chunkX4 >> 2) & 1) == 0;
             if (rand.nextFloat() < .2f) {
@@ -114,7 +115,8 @@ public class NormalTerrainGenerator implements BaseTerrainGenerator {
             }
         }
 
-        if (provider.biomesForGeneration == null) {
+        BiomeGenBase[] biomesForGeneration = context.getNoiseBiomes();
+        if (biomesForGeneration == null) {
             Logging.log("Dimension " + world.provider.getDimensionId() + " has a problem! Ignoring for now.");
             return;
         }
@@ -125,11 +127,11 @@ public class NormalTerrainGenerator implements BaseTerrainGenerator {
                 float f1 = 0.0F;
                 float f2 = 0.0F;
                 byte b0 = 2;
-                BiomeGenBase biomegenbase = provider.biomesForGeneration[j1 + 2 + (k1 + 2) * 10];
+                BiomeGenBase biomegenbase = biomesForGeneration[j1 + 2 + (k1 + 2) * 10];
 
                 for (int l1 = -b0; l1 <= b0; ++l1) {
                     for (int i2 = -b0; i2 <= b0; ++i2) {
-                        BiomeGenBase biomegenbase1 = provider.biomesForGeneration[j1 + l1 + 2 + (k1 + i2 + 2) * 10];
+                        BiomeGenBase biomegenbase1 = biomesForGeneration[j1 + l1 + 2 + (k1 + i2 + 2) * 10];
 //                        float f3 = biomegenbase1.rootHeight;
 //                        float f4 = biomegenbase1.heightVariation;
                         float f3 = provider.getSettings().biomeDepthOffSet + biomegenbase1.minHeight * provider.getSettings().biomeDepthWeight;
@@ -232,12 +234,12 @@ public class NormalTerrainGenerator implements BaseTerrainGenerator {
     }
 
     @Override
-    public void generate(int chunkX, int chunkZ, ChunkPrimer primer) {
+    public void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
         IBlockState baseBlock = provider.dimensionInformation.getBaseBlockForTerrain();
 //        byte baseMeta = provider.dimensionInformation.getBaseBlockForTerrain().getMeta();
         Block baseLiquid = provider.dimensionInformation.getFluidForTerrain();
 
-        func_147423_a(chunkX * 4, 0, chunkZ * 4);
+        func_147423_a(chunkX * 4, 0, chunkZ * 4, context);
 
         byte waterLevel = 63;
         for (int x4 = 0; x4 < 4; ++x4) {
@@ -309,7 +311,17 @@ public class NormalTerrainGenerator implements BaseTerrainGenerator {
     }
 
     @Override
-    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases) {
+    public boolean canGenerateOffThread() {
+        return true;
+    }
+
+    @Override
+    public boolean canReplaceBlocksOffThread() {
+        return false;
+    }
+
+    @Override
+    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases, GenerationContext context) {
         ChunkProviderEvent.ReplaceBiomeBlocks event = new ChunkProviderEvent.ReplaceBiomeBlocks(provider, chunkX, chunkZ, primer, world);
         MinecraftForge.EVENT_BUS.post(event);
         if (event.getResult() == Event.Result.DENY) {
@@ -322,7 +334,7 @@ public class NormalTerrainGenerator implements BaseTerrainGenerator {
         for (int k = 0; k < 16; ++k) {
             for (int l = 0; l < 16; ++l) {
                 BiomeGenBase biomegenbase = biomeGenBases[l + k * 16];
-                biomegenbase.genTerrainBlocks(world, provider.rand, primer, chunkX * 16 + k, chunkZ * 16 + l, this.stoneNoise[l + k * 16]);
+                biomegenbase.genTerrainBlocks(world, context.getRandom(), primer, chunkX * 16 + k, chunkZ * 16 + l, this.stoneNoise[l + k * 16]);
             }
         }
     }
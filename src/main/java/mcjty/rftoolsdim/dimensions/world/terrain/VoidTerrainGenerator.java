@@ -1,7 +1,7 @@
 package mcjty.rftoolsdim.dimensions.world.terrain;
 
+import mcjty.rftoolsdim.dimensions.world.GenerationContext;
 import mcjty.rftoolsdim.dimensions.world.GenericChunkProvider;
-import net.minecraft.init.Blocks;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.BiomeGenBase;
 import net.minecraft.world.chunk.ChunkPrimer;
@@ -14,14 +14,22 @@ public class VoidTerrainGenerator implements BaseTerrainGenerator {
     }
 
     @Override
-    public void generate(int chunkX, int chunkZ, ChunkPrimer primer) {
-        for (int i = 0 ; i < 65536 ; i++) {
-            primer.setBlockState(i, Blocks.air.getDefaultState());
-        }
+    public void generate(int chunkX, int chunkZ, ChunkPrimer primer, GenerationContext context) {
+        // The primer of the generation context is always cleared to air already.
     }
 
     @Override
-    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases) {
+    public boolean canGenerateOffThread() {
+        return true;
+    }
+
+    @Override
+    public boolean canReplaceBlocksOffThread() {
+        return true;
+    }
+
+    @Override
+    public void replaceBlocksForBiome(int chunkX, int chunkZ, ChunkPrimer primer, BiomeGenBase[] biomeGenBases, GenerationContext context) {
         // @todo?
 //        for (int i = 0 ; i < 65536 ; i++) {
 //            abyte[i] = 0;
@@ -0,0 +1,89 @@
+package mcjty.rftoolsdim.network;
+
+import mcjty.lib.varia.Logging;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ServerData;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The dimension information that the client has, as encoded by
+ * PacketSyncDimensionInfo.encodeDimension(). For a remote server this is also kept on disk
+ * (one file per server address) so that on the next login the server only has to send the
+ * dimensions that changed in the meantime.
+ */
+@SideOnly(Side.CLIENT)
+public class DimensionInfoCache {
+
+    private static final Map<Integer, byte[]> dimensions = new HashMap<>();
+    private static File cacheFile = null;
+
+    public static Map<Integer, byte[]> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Load the cache for the server we are connected to.
+     */
+    public static void load() {
+        dimensions.clear();
+        cacheFile = getCacheFile();
+        if (cacheFile == null || !cacheFile.exists()) {
+            return;
+        }
+        try {
+            NBTTagCompound tagCompound = CompressedStreamTools.read(cacheFile);
+            if (tagCompound != null) {
+                NBTTagList lst = tagCompound.getTagList("dimensions", Constants.NBT.TAG_COMPOUND);
+                for (int i = 0 ; i < lst.tagCount() ; i++) {
+                    NBTTagCompound tc = lst.getCompoundTagAt(i);
+                    dimensions.put(tc.getInteger("id"), tc.getByteArray("data"));
+                }
+            }
+        } catch (IOException e) {
+            Logging.logError("Could not read the dimension information cache " + cacheFile);
+            dimensions.clear();
+        }
+    }
+
+    public static void save() {
+        if (cacheFile == null) {
+            return;
+        }
+        NBTTagList lst = new NBTTagList();
+        for (Map.Entry<Integer, byte[]> me : dimensions.entrySet()) {
+            NBTTagCompound tc = new NBTTagCompound();
+            tc.setInteger("id", me.getKey());
+            tc.setByteArray("data", me.getValue());
+            lst.appendTag(tc);
+        }
+        NBTTagCompound tagCompound = new NBTTagCompound();
+        tagCompound.setTag("dimensions", lst);
+        try {
+            cacheFile.getParentFile().mkdirs();
+            CompressedStreamTools.safeWrite(tagCompound, cacheFile);
+        } catch (IOException e) {
+            Logging.logError("Could not write the dimension information cache " + cacheFile);
+        }
+    }
+
+    // No cache file for the integrated server: it shares the dimension information with us.
+    private static File getCacheFile() {
+        Minecraft mc = Minecraft.getMinecraft();
+        ServerData serverData = mc.getCurrentServerData();
+        if (mc.isIntegratedServerRunning() || serverData == null) {
+            return null;
+        }
+        String name = serverData.serverIP.replaceAll("[^a-zA-Z0-9._-]", "_");
+        return new File(mc.mcDataDir, "rftoolsdim/servercache/" + name + ".dat");
+    }
+}
@@ -0,0 +1,35 @@
+package mcjty.rftoolsdim.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.client.Minecraft;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+/**
+ * Sent to a player that logs in. The client answers with PacketRequestDimensionInfo containing
+ * the hashes of the dimension information in its cache for this server.
+ */
+public class PacketDimensionInfoHandshake implements IMessage {
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+    }
+
+    public PacketDimensionInfoHandshake() {
+    }
+
+    public static class Handler implements IMessageHandler<PacketDimensionInfoHandshake, IMessage> {
+        @Override
+        public IMessage onMessage(PacketDimensionInfoHandshake message, MessageContext ctx) {
+            Minecraft.getMinecraft().addScheduledTask(SyncDimensionInfoHelper::startSync);
+            return null;
+        }
+
+    }
+
+}
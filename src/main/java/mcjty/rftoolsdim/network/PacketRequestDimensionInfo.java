@@ -0,0 +1,67 @@
+package mcjty.rftoolsdim.network;
+
+import io.netty.buffer.ByteBuf;
+import mcjty.rftoolsdim.dimensions.RfToolsDimensionManager;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sent by a client that needs a full sync of the dimension information: after the handshake
+ * when it joins a server or when it got a delta it can't apply (it doesn't have the revision the
+ * delta starts from). It contains the content hash of every dimension the client already has
+ * (see PacketSyncDimensionInfo.hashDimension()) so the server only has to send the others.
+ */
+public class PacketRequestDimensionInfo implements IMessage {
+    private Map<Integer, Long> hashes;
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        int size = buf.readInt();
+        hashes = new HashMap<Integer, Long>();
+        for (int i = 0 ; i < size ; i++) {
+            int id = buf.readInt();
+            hashes.put(id, buf.readLong());
+        }
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        buf.writeInt(hashes.size());
+        for (Map.Entry<Integer, Long> me : hashes.entrySet()) {
+            buf.writeInt(me.getKey());
+            buf.writeLong(me.getValue());
+        }
+    }
+
+    public Map<Integer, Long> getHashes() {
+        return hashes;
+    }
+
+    public PacketRequestDimensionInfo() {
+    }
+
+    public PacketRequestDimensionInfo(Map<Integer, Long> hashes) {
+        this.hashes = new HashMap<Integer, Long>(hashes);
+    }
+
+    public static class Handler implements IMessageHandler<PacketRequestDimensionInfo, IMessage> {
+        @Override
+        public IMessage onMessage(PacketRequestDimensionInfo message, MessageContext ctx) {
+            MinecraftServer.getServer().addScheduledTask(() -> handle(message, ctx));
+            return null;
+        }
+
+        private void handle(PacketRequestDimensionInfo message, MessageContext ctx) {
+            EntityPlayerMP player = ctx.getServerHandler().playerEntity;
+            RfToolsDimensionManager.getDimensionManager(player.worldObj).syncDimInfoToClient(player, message.getHashes());
+        }
+
+    }
+
+}
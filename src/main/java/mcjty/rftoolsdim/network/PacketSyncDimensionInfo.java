@@ -1,6 +1,7 @@
 package mcjty.rftoolsdim.network;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import mcjty.lib.network.NetworkTools;
 import mcjty.rftoolsdim.dimensions.DimensionInformation;
 import mcjty.rftoolsdim.dimensions.description.DimensionDescriptor;
@@ -12,62 +13,159 @@ import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 /**
- * Sync RfToolsDimensionManager data from server to client.
+ * Sync RfToolsDimensionManager data from server to client. A full sync brings the client to
+ * revision 'revision'. It contains all dimensions except the ones the client already has
+ * (as reported with PacketRequestDimensionInfo) and the ids of the reported dimensions that
+ * no longer exist. Otherwise this is a delta from revision 'fromRevision' to 'revision' that
+ * only contains the dimensions that were added or changed and the ids of the dimensions that
+ * were removed (see RfToolsDimensionManager.syncDimInfoToClients()).
  */
 public class PacketSyncDimensionInfo implements IMessage {
+    private boolean full;
+    private int fromRevision;
+    private int revision;
+
+    // Server side: the dimensions as encoded by encodeDimension().
+    private Collection<byte[]> encoded;
+    private Collection<Integer> removed;
+
+    // Client side: the decoded dimensions and the data they were decoded from.
     private Map<Integer, DimensionDescriptor> dimensions;
     private Map<Integer, DimensionInformation> dimensionInformation;
+    private Map<Integer, byte[]> encodedDimensions;
 
     @Override
     public void fromBytes(ByteBuf buf) {
+        full = buf.readBoolean();
+        fromRevision = buf.readInt();
+        revision = buf.readInt();
+
         int size = buf.readInt();
         dimensions = new HashMap<Integer, DimensionDescriptor>();
+        dimensionInformation = new HashMap<Integer, DimensionInformation>();
+        encodedDimensions = new HashMap<Integer, byte[]>();
         for (int i = 0 ; i < size ; i++) {
-            int id = buf.readInt();
-            PacketBuffer buffer = new PacketBuffer(buf);
-            NBTTagCompound tagCompound;
-            try {
-                tagCompound = buffer.readNBTTagCompoundFromBuffer();
-            } catch (IOException e) {
-                e.printStackTrace();
+            int start = buf.readerIndex();
+            Integer id = readDimension(buf, dimensions, dimensionInformation);
+            if (id == null) {
                 return;
             }
-            DimensionDescriptor descriptor = new DimensionDescriptor(tagCompound);
-            dimensions.put(id, descriptor);
+            byte[] data = new byte[buf.readerIndex() - start];
+            buf.getBytes(start, data);
+            encodedDimensions.put(id, data);
         }
 
         size = buf.readInt();
-        dimensionInformation = new HashMap<Integer, DimensionInformation>();
+        removed = new ArrayList<Integer>();
         for (int i = 0 ; i < size ; i++) {
-            int id = buf.readInt();
-            String name = NetworkTools.readString(buf);
-            DimensionInformation dimInfo = new DimensionInformation(name, dimensions.get(id), buf);
-            dimensionInformation.put(id, dimInfo);
+            removed.add(buf.readInt());
         }
     }
 
     @Override
     public void toBytes(ByteBuf buf) {
-        buf.writeInt(dimensions.size());
-        for (Map.Entry<Integer,DimensionDescriptor> me : dimensions.entrySet()) {
-            buf.writeInt(me.getKey());
-            NBTTagCompound tagCompound = new NBTTagCompound();
-            me.getValue().writeToNBT(tagCompound);
-            PacketBuffer buffer = new PacketBuffer(buf);
-            buffer.writeNBTTagCompoundToBuffer(tagCompound);
+        buf.writeBoolean(full);
+        buf.writeInt(fromRevision);
+        buf.writeInt(revision);
+
+        buf.writeInt(encoded.size());
+        for (byte[] data : encoded) {
+            buf.writeBytes(data);
+        }
+
+        buf.writeInt(removed.size());
+        for (Integer id : removed) {
+            buf.writeInt(id);
         }
+    }
 
-        buf.writeInt(dimensionInformation.size());
-        for (Map.Entry<Integer, DimensionInformation> me : dimensionInformation.entrySet()) {
-            buf.writeInt(me.getKey());
-            DimensionInformation dimInfo = me.getValue();
+    /**
+     * Encode one dimension as it is sent in this packet. The server compares these to find the
+     * dimensions that changed since the last sync.
+     */
+    public static byte[] encodeDimension(int id, DimensionDescriptor descriptor, DimensionInformation dimInfo) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(id);
+        NBTTagCompound tagCompound = new NBTTagCompound();
+        descriptor.writeToNBT(tagCompound);
+        PacketBuffer buffer = new PacketBuffer(buf);
+        buffer.writeNBTTagCompoundToBuffer(tagCompound);
+        buf.writeBoolean(dimInfo != null);
+        if (dimInfo != null) {
             NetworkTools.writeString(buf, dimInfo.getName());
             dimInfo.toBytes(buf);
         }
+        byte[] data = new byte[buf.readableBytes()];
+        buf.readBytes(data);
+        return data;
+    }
+
+    // Read one dimension as written by encodeDimension(). Returns the id or null on error.
+    private static Integer readDimension(ByteBuf buf, Map<Integer, DimensionDescriptor> dimensions, Map<Integer, DimensionInformation> dimensionInformation) {
+        int id = buf.readInt();
+        PacketBuffer buffer = new PacketBuffer(buf);
+        NBTTagCompound tagCompound;
+        try {
+            tagCompound = buffer.readNBTTagCompoundFromBuffer();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        DimensionDescriptor descriptor = new DimensionDescriptor(tagCompound);
+        dimensions.put(id, descriptor);
+        if (buf.readBoolean()) {
+            String name = NetworkTools.readString(buf);
+            DimensionInformation dimInfo = new DimensionInformation(name, descriptor, buf);
+            dimensionInformation.put(id, dimInfo);
+        }
+        return id;
+    }
+
+    /**
+     * Decode a dimension that was encoded with encodeDimension() (for example from the client
+     * cache). Returns false if the data is not valid.
+     */
+    public static boolean decodeDimension(byte[] data, Map<Integer, DimensionDescriptor> dimensions, Map<Integer, DimensionInformation> dimensionInformation) {
+        try {
+            return readDimension(Unpooled.wrappedBuffer(data), dimensions, dimensionInformation) != null;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Content hash of an encoded dimension. Used by the client to tell the server which
+     * dimensions it already has.
+     */
+    public static long hashDimension(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(data);
+            long hash = 0;
+            for (int i = 0 ; i < 8 ; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has MD5.
+            throw new RuntimeException(e);
+        }
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public int getFromRevision() {
+        return fromRevision;
+    }
+
+    public int getRevision() {
+        return revision;
     }
 
     public Map<Integer, DimensionDescriptor> getDimensions() {
@@ -78,12 +176,23 @@ public class PacketSyncDimensionInfo implements IMessage {
         return dimensionInformation;
     }
 
+    public Map<Integer, byte[]> getEncodedDimensions() {
+        return encodedDimensions;
+    }
+
+    public Collection<Integer> getRemoved() {
+        return removed;
+    }
+
     public PacketSyncDimensionInfo() {
     }
 
-    public PacketSyncDimensionInfo(Map<Integer, DimensionDescriptor> dimensions, Map<Integer, DimensionInformation> dimensionInformation) {
-        this.dimensions = new HashMap<Integer, DimensionDescriptor>(dimensions);
-        this.dimensionInformation = new HashMap<Integer, DimensionInformation>(dimensionInformation);
+    public PacketSyncDimensionInfo(boolean full, int fromRevision, int revision, Collection<byte[]> encoded, Collection<Integer> removed) {
+        this.full = full;
+        this.fromRevision = fromRevision;
+        this.revision = revision;
+        this.encoded = new ArrayList<byte[]>(encoded);
+        this.removed = new ArrayList<Integer>(removed);
     }
 
     public static class Handler implements IMessageHandler<PacketSyncDimensionInfo, IMessage> {
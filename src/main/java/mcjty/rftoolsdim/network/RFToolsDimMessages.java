@@ -12,11 +12,13 @@ public class RFToolsDimMessages {
 
         // Server side
         net.registerMessage(PacketGetDimensionEnergy.Handler.class, PacketGetDimensionEnergy.class, PacketHandler.nextID(), Side.SERVER);
+        net.registerMessage(PacketRequestDimensionInfo.Handler.class, PacketRequestDimensionInfo.class, PacketHandler.nextID(), Side.SERVER);
 
         // Client side
         net.registerMessage(PacketRegisterDimensions.Handler.class, PacketRegisterDimensions.class, PacketHandler.nextID(), Side.SERVER);
         net.registerMessage(PacketReturnEnergy.Handler.class, PacketReturnEnergy.class, PacketHandler.nextID(), Side.CLIENT);
         net.registerMessage(PacketSyncDimensionInfo.Handler.class, PacketSyncDimensionInfo.class, PacketHandler.nextID(), Side.CLIENT);
+        net.registerMessage(PacketDimensionInfoHandshake.Handler.class, PacketDimensionInfoHandshake.class, PacketHandler.nextID(), Side.CLIENT);
         net.registerMessage(PacketSyncRules.Handler.class, PacketSyncRules.class, PacketHandler.nextID(), Side.CLIENT);
     }
 }
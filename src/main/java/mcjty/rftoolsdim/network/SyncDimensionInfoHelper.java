@@ -1,22 +1,88 @@
 package mcjty.rftoolsdim.network;
 
 import mcjty.lib.varia.Logging;
+import mcjty.rftoolsdim.dimensions.DimensionInformation;
 import mcjty.rftoolsdim.dimensions.RfToolsDimensionManager;
-import net.minecraft.client.Minecraft;
-import net.minecraft.world.World;
+import mcjty.rftoolsdim.dimensions.description.DimensionDescriptor;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
+import java.util.*;
+
 @SideOnly(Side.CLIENT)
 public class SyncDimensionInfoHelper {
 
+    // The revision of the dimension information that this client has (-1 if it has nothing yet).
+    private static int revision = -1;
+
+    // True while we wait for the answer to a PacketRequestDimensionInfo.
+    private static boolean requested = false;
+
+    /**
+     * Called when we join a server: load our cache for this server and tell the server what we have.
+     */
+    public static void startSync() {
+        DimensionInfoCache.load();
+        revision = -1;
+        requestSync();
+    }
+
+    private static void requestSync() {
+        Map<Integer, Long> hashes = new HashMap<>();
+        for (Map.Entry<Integer, byte[]> me : DimensionInfoCache.getDimensions().entrySet()) {
+            hashes.put(me.getKey(), PacketSyncDimensionInfo.hashDimension(me.getValue()));
+        }
+        requested = true;
+        RFToolsDimMessages.INSTANCE.sendToServer(new PacketRequestDimensionInfo(hashes));
+    }
+
     public static void syncDimensionManagerFromServer(PacketSyncDimensionInfo message) {
-        World world = Minecraft.getMinecraft().theWorld;
-        Logging.log("Received dimension information from server");
         RfToolsDimensionManager dimensionManager = RfToolsDimensionManager.getDimensionManagerClient();
+        Map<Integer, byte[]> cached = DimensionInfoCache.getDimensions();
+
+        if (message.isFull()) {
+            Logging.log("Received dimension information from server (" + message.getDimensions().size() + " dimensions were not cached)");
+            requested = false;
+            cached.keySet().removeAll(message.getRemoved());
+            cached.putAll(message.getEncodedDimensions());
+
+            // The cached dimensions that the server didn't send are up to date.
+            Map<Integer, DimensionDescriptor> dimensions = new HashMap<>(message.getDimensions());
+            Map<Integer, DimensionInformation> dimensionInformation = new HashMap<>(message.getDimensionInformation());
+            boolean corrupt = false;
+            for (Iterator<Map.Entry<Integer, byte[]>> iterator = cached.entrySet().iterator() ; iterator.hasNext() ; ) {
+                Map.Entry<Integer, byte[]> me = iterator.next();
+                if (!dimensions.containsKey(me.getKey()) && !PacketSyncDimensionInfo.decodeDimension(me.getValue(), dimensions, dimensionInformation)) {
+                    iterator.remove();
+                    corrupt = true;
+                }
+            }
+            if (corrupt) {
+                Logging.log("Dimension information cache is damaged: requesting the missing dimensions");
+                DimensionInfoCache.save();
+                requestSync();
+                return;
+            }
 
-        dimensionManager.syncFromServer(message.getDimensions(), message.getDimensionInformation());
-//        dimensionManager.save(world);
+            // Everything else no longer exists.
+            Set<Integer> removed = new HashSet<>(dimensionManager.getDimensions().keySet());
+            removed.removeAll(dimensions.keySet());
+            dimensionManager.syncFromServer(dimensions, dimensionInformation, removed);
+        } else if (message.getFromRevision() == revision) {
+            Logging.log("Received dimension information changes from server");
+            dimensionManager.syncFromServer(message.getDimensions(), message.getDimensionInformation(), message.getRemoved());
+            cached.keySet().removeAll(message.getRemoved());
+            cached.putAll(message.getEncodedDimensions());
+        } else {
+            // We missed a revision. Ask for everything we don't have (unless we already did).
+            if (!requested) {
+                Logging.log("Dimension information from server is out of date: requesting a full sync");
+                requestSync();
+            }
+            return;
+        }
+        revision = message.getRevision();
+        DimensionInfoCache.save();
     }
 
 }
@@ -11,6 +11,7 @@ import mcjty.rftoolsdim.config.*;
 import mcjty.rftoolsdim.dimensions.DimensionTickEvent;
 import mcjty.rftoolsdim.dimensions.ModDimensions;
 import mcjty.rftoolsdim.dimensions.dimlets.KnownDimletConfiguration;
+import mcjty.rftoolsdim.dimensions.world.WorldGenTickEvent;
 import mcjty.rftoolsdim.gui.GuiProxy;
 import mcjty.rftoolsdim.items.ModItems;
 import mcjty.rftoolsdim.network.RFToolsDimMessages;
@@ -81,6 +82,7 @@ public abstract class CommonProxy {
         NetworkRegistry.INSTANCE.registerGuiHandler(RFToolsDim.instance, new GuiProxy());
         MinecraftForge.EVENT_BUS.register(new ForgeEventHandlers());
         MinecraftForge.EVENT_BUS.register(new DimensionTickEvent());
+        MinecraftForge.EVENT_BUS.register(new WorldGenTickEvent());
         ModCrafting.init();
     }
 